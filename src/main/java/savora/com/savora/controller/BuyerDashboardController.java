@@ -4,19 +4,25 @@ import savora.com.savora.model.Order;
 import savora.com.savora.model.Product;
 import savora.com.savora.model.Review;
 import savora.com.savora.model.User;
+import savora.com.savora.service.AnalyticsService;
 import savora.com.savora.service.OrderService;
+import savora.com.savora.service.OrderSummary;
 import savora.com.savora.service.ProductService;
 import savora.com.savora.service.ReviewService;
 import savora.com.savora.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 @Controller
@@ -35,6 +41,9 @@ public class BuyerDashboardController {
     @Autowired
     private ReviewService reviewService;
 
+    @Autowired
+    private AnalyticsService analyticsService;
+
     @GetMapping("/dashboard")
     public String dashboard(@AuthenticationPrincipal UserDetails userDetails, Model model) {
         User buyer = userService.findByUsername(userDetails.getUsername()).orElse(null);
@@ -42,58 +51,29 @@ public class BuyerDashboardController {
             return "redirect:/login";
         }
 
-        // Get orders statistics
-        List<Order> orders = orderService.getOrdersByBuyer(buyer);
-        long totalOrders = orders.size();
-        long completedOrders = orders.stream().filter(o -> o.getStatus() == Order.Status.DELIVERED).count();
-        long pendingOrders = orders.stream().filter(o -> o.getStatus() == Order.Status.PENDING || o.getStatus() == Order.Status.PROCESSING).count();
-
-        BigDecimal totalSpent = orders.stream()
-                .filter(o -> o.getStatus() == Order.Status.DELIVERED)
-                .map(Order::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Get recent orders (last 5)
-        List<Order> recentOrders = orders.stream()
-                .sorted((o1, o2) -> o2.getCreatedAt().compareTo(o1.getCreatedAt()))
-                .limit(5)
-                .toList();
-
-        // Get recent reviews (last 5)
-        List<Review> recentReviews = reviewService.getReviewsByBuyer(buyer).stream()
-                .sorted((r1, r2) -> r2.getCreatedAt().compareTo(r1.getCreatedAt()))
-                .limit(5)
-                .toList();
-
-        model.addAttribute("totalOrders", totalOrders);
-        model.addAttribute("completedOrders", completedOrders);
-        model.addAttribute("pendingOrders", pendingOrders);
-        model.addAttribute("totalSpent", totalSpent);
-        model.addAttribute("recentOrders", recentOrders);
-        model.addAttribute("recentReviews", recentReviews);
+        // Orders, spending and recent orders/reviews (cached per buyer)
+        model.addAllAttributes(analyticsService.getBuyerDashboardStats(buyer));
         model.addAttribute("recentActivities", List.of()); // TODO: Implement activity tracking
 
         return "buyer/dashboard";
     }
 
     @GetMapping("/orders")
-    public String orders(@AuthenticationPrincipal UserDetails userDetails, Model model) {
+    public String orders(@AuthenticationPrincipal UserDetails userDetails,
+                         @RequestParam(required = false) Order.Status status,
+                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                         @RequestParam(defaultValue = "0") int page,
+                         @RequestParam(defaultValue = "10") int size,
+                         Model model) {
         User buyer = userService.findByUsername(userDetails.getUsername()).orElse(null);
         if (buyer == null) {
             return "redirect:/login";
         }
 
-        List<Order> orders = orderService.getOrdersByBuyer(buyer);
-
-        // Add sequential order IDs for display
-        java.util.Map<Long, Integer> sequentialOrderIds = new java.util.HashMap<>();
-        for (Order order : orders) {
-            Integer sequentialId = orderService.getSequentialOrderIdForBuyer(order, buyer);
-            sequentialOrderIds.put(order.getId(), sequentialId);
-        }
+        Page<OrderSummary> orders = orderService.getOrderSummariesForBuyer(buyer, status, from, to, page, size);
 
-        model.addAttribute("orders", orders);
-        model.addAttribute("sequentialOrderIds", sequentialOrderIds);
+        OrderController.addOrderPage(model, orders, status, from, to);
 
         return "buyer/orders";
     }
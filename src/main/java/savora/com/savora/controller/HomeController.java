@@ -4,13 +4,14 @@ import savora.com.savora.model.Product;
 import savora.com.savora.model.Category;
 import savora.com.savora.service.ProductService;
 import savora.com.savora.service.CategoryService;
+import savora.com.savora.service.HomeRailsService;
+import savora.com.savora.service.ProductSlice;
 import savora.com.savora.service.NotificationService;
 import savora.com.savora.service.UserService;
 import savora.com.savora.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -64,34 +65,39 @@ class ProductSearchDTO {
     public String getSupplierCompanyName() { return supplierCompanyName; }
 }
 
-// Response class for search API
+// Response class for search API; nextCursor continues the listing, totalItems is only set when requested
 class SearchResponse {
     private List<ProductSearchDTO> products;
-    private int currentPage;
-    private int totalPages;
-    private long totalItems;
+    private String nextCursor;
+    private boolean hasMore;
+    private Long totalItems;
+    private boolean totalApproximate;
     private boolean hasContent;
 
     // Constructor
-    public SearchResponse(List<Product> products, int currentPage, int totalPages, long totalItems, boolean hasContent) {
-        this.products = products.stream().map(ProductSearchDTO::new).collect(Collectors.toList());
-        this.currentPage = currentPage;
-        this.totalPages = totalPages;
-        this.totalItems = totalItems;
-        this.hasContent = hasContent;
+    public SearchResponse(ProductSlice slice) {
+        this.products = slice.getProducts().stream().map(ProductSearchDTO::new).collect(Collectors.toList());
+        this.nextCursor = slice.getNextCursor();
+        this.hasMore = slice.isHasMore();
+        this.totalItems = slice.getTotalItems();
+        this.totalApproximate = slice.isTotalApproximate();
+        this.hasContent = !this.products.isEmpty();
     }
 
     // Getters
     public List<ProductSearchDTO> getProducts() { return products; }
-    public int getCurrentPage() { return currentPage; }
-    public int getTotalPages() { return totalPages; }
-    public long getTotalItems() { return totalItems; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean isHasMore() { return hasMore; }
+    public Long getTotalItems() { return totalItems; }
+    public boolean isTotalApproximate() { return totalApproximate; }
     public boolean isHasContent() { return hasContent; }
 }
 
 @Controller
 public class HomeController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private ProductService productService;
 
@@ -104,6 +110,9 @@ public class HomeController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private HomeRailsService homeRailsService;
+
     @GetMapping("/")
     public String home(@RequestParam(value = "search", required = false) String search,
                          @RequestParam(value = "category", required = false) Long categoryId,
@@ -111,47 +120,38 @@ public class HomeController {
                          @RequestParam(value = "maxPrice", required = false) Double maxPrice,
                          @RequestParam(value = "sort", defaultValue = "id") String sortBy,
                          @RequestParam(value = "order", defaultValue = "desc") String sortDir,
-                         @RequestParam(value = "page", defaultValue = "0") int page,
+                         @RequestParam(value = "cursor", required = false) String cursor,
                          @RequestParam(value = "size", defaultValue = "20") int size,
                          @AuthenticationPrincipal UserDetails userDetails,
                          Model model) {
 
-        // Initialize supplier product IDs for existing products (one-time operation)
+        size = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        ProductSlice productSlice;
         try {
-            productService.initializeSupplierProductIds();
-        } catch (Exception e) {
-            // Log error but don't fail the request
-            System.err.println("Error initializing supplier product IDs: " + e.getMessage());
+            productSlice = productService.getProductSlice(search, categoryId, minPrice, maxPrice, null, sortBy, sortDir, cursor, size, false);
+        } catch (IllegalArgumentException e) {
+            // Stale cursor or one issued for another ordering: start from the first page
+            productSlice = productService.getProductSlice(search, categoryId, minPrice, maxPrice, null, sortBy, sortDir, null, size, false);
         }
 
-        Page<Product> productPage;
-
         if (search != null && !search.trim().isEmpty()) {
-            productPage = productService.searchProductsWithFilters(search, categoryId, minPrice, maxPrice, null, page, size, sortBy, sortDir);
             model.addAttribute("searchTerm", search);
         } else if (categoryId != null) {
-            productPage = productService.searchProductsWithFilters(null, categoryId, minPrice, maxPrice, null, page, size, sortBy, sortDir);
             Category category = categoryService.getCategoryById(categoryId).orElse(null);
             if (category != null) {
                 model.addAttribute("categoryName", category.getName());
             }
-        } else {
-            productPage = productService.getAllProductsPaged(page, size, sortBy, sortDir);
         }
 
-        // Add flash sale products (low stock or featured)
-        model.addAttribute("flashSaleProducts", productService.getLowStockProducts().subList(0, Math.min(6, productService.getLowStockProducts().size())));
-
-        // Add popular products
-        model.addAttribute("popularProducts", productService.getPopularProducts(0, 8));
-
-        // Add new products
-        model.addAttribute("newProducts", productService.getNewProducts(0, 8));
+        // Flash sale (low stock), popular and new product rails from the shared snapshot
+        HomeRailsService.HomeRails rails = homeRailsService.getRails();
+        model.addAttribute("flashSaleProducts", rails.getFlashSaleProducts());
+        model.addAttribute("popularProducts", rails.getPopularProducts());
+        model.addAttribute("newProducts", rails.getNewProducts());
 
-        model.addAttribute("products", productPage.getContent());
-        model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", productPage.getTotalPages());
-        model.addAttribute("totalItems", productPage.getTotalElements());
+        model.addAttribute("products", productSlice.getProducts());
+        model.addAttribute("nextCursor", productSlice.getNextCursor());
+        model.addAttribute("hasMore", productSlice.isHasMore());
         model.addAttribute("sortBy", sortBy);
         model.addAttribute("sortDir", sortDir);
         model.addAttribute("search", search);
@@ -160,7 +160,7 @@ public class HomeController {
         model.addAttribute("maxPrice", maxPrice);
 
         // Always add categories for navigation
-        model.addAttribute("categories", categoryService.getAllCategories());
+        model.addAttribute("categories", rails.getCategories());
 
         // Add unread notification count for authenticated users
         if (userDetails != null) {
@@ -177,20 +177,18 @@ public class HomeController {
     @ResponseBody
     public ResponseEntity<SearchResponse> searchProductsApi(@RequestParam(value = "search", required = false) String search,
                                                            @RequestParam(value = "category", required = false) Long categoryId,
-                                                           @RequestParam(value = "page", defaultValue = "0") int page,
-                                                           @RequestParam(value = "size", defaultValue = "12") int size) {
-
-        Page<Product> productPage = productService.searchProductsWithFilters(search, categoryId, null, null, null, page, size, "id", "desc");
-
-        SearchResponse response = new SearchResponse(
-            productPage.getContent(),
-            page,
-            productPage.getTotalPages(),
-            productPage.getTotalElements(),
-            !productPage.getContent().isEmpty()
-        );
-
-        return ResponseEntity.ok(response);
+                                                           @RequestParam(value = "cursor", required = false) String cursor,
+                                                           @RequestParam(value = "size", defaultValue = "12") int size,
+                                                           @RequestParam(value = "sort", defaultValue = "id") String sortBy,
+                                                           @RequestParam(value = "order", defaultValue = "desc") String sortDir,
+                                                           @RequestParam(value = "includeTotal", defaultValue = "false") boolean includeTotal) {
+        try {
+            ProductSlice slice = productService.getProductSlice(search, categoryId, null, null, null,
+                    sortBy, sortDir, cursor, Math.max(1, Math.min(size, MAX_PAGE_SIZE)), includeTotal);
+            return ResponseEntity.ok(new SearchResponse(slice));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/api/search-suggestions")
@@ -2,16 +2,23 @@ package savora.com.savora.controller;
 
 import savora.com.savora.model.Notification;
 import savora.com.savora.model.User;
+import savora.com.savora.service.NotificationItem;
+import savora.com.savora.service.NotificationPushService;
 import savora.com.savora.service.NotificationService;
 import savora.com.savora.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/notifications")
@@ -23,22 +30,26 @@ public class NotificationController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private NotificationPushService notificationPushService;
+
     @GetMapping
-    public String viewNotifications(@AuthenticationPrincipal UserDetails userDetails, Model model) {
+    public String viewNotifications(@AuthenticationPrincipal UserDetails userDetails,
+                                    @RequestParam(defaultValue = "all") String filter,
+                                    @RequestParam(defaultValue = "0") int page,
+                                    @RequestParam(defaultValue = "20") int size,
+                                    Model model) {
+        model.addAttribute("filter", filter);
         try {
-            User user = userService.findByUsername(userDetails.getUsername()).orElse(null);
-            if (user != null) {
-                java.util.List<Notification> notifications = notificationService.getUserNotifications(user);
-                long readCount = notifications.stream().filter(Notification::getIsRead).count();
-                model.addAttribute("notifications", notifications);
-                model.addAttribute("unreadCount", notificationService.countUnreadNotifications(user));
-                model.addAttribute("readCount", readCount);
-                model.addAttribute("userRole", user.getRole());
-            } else {
-                model.addAttribute("notifications", new java.util.ArrayList<>());
-                model.addAttribute("unreadCount", 0L);
-                model.addAttribute("readCount", 0L);
-            }
+            String username = userDetails.getUsername();
+            Page<Notification> notificationsPage = notificationService.getInbox(username, readFilter(filter), page, size);
+            long unreadCount = notificationService.countUnreadNotifications(username);
+            long readCount = notificationService.countReadNotifications(username);
+            model.addAttribute("notifications", notificationsPage.getContent());
+            model.addAttribute("notificationsPage", notificationsPage);
+            model.addAttribute("unreadCount", unreadCount);
+            model.addAttribute("readCount", readCount);
+            model.addAttribute("totalCount", unreadCount + readCount);
             return "notifications";
         } catch (Exception e) {
             e.printStackTrace();
@@ -46,10 +57,35 @@ public class NotificationController {
             model.addAttribute("notifications", new java.util.ArrayList<>());
             model.addAttribute("unreadCount", 0L);
             model.addAttribute("readCount", 0L);
+            model.addAttribute("totalCount", 0L);
             return "notifications";
         }
     }
 
+    // Inbox page as JSON: filter is all, unread or read
+    @GetMapping("/inbox")
+    @ResponseBody
+    public Map<String, Object> inbox(@AuthenticationPrincipal UserDetails userDetails,
+                                     @RequestParam(defaultValue = "all") String filter,
+                                     @RequestParam(defaultValue = "0") int page,
+                                     @RequestParam(defaultValue = "20") int size) {
+        Page<Notification> notificationsPage = notificationService.getInbox(userDetails.getUsername(), readFilter(filter), page, size);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("items", notificationsPage.getContent().stream().map(NotificationItem::new).toList());
+        response.put("page", notificationsPage.getNumber());
+        response.put("size", notificationsPage.getSize());
+        response.put("totalPages", notificationsPage.getTotalPages());
+        response.put("totalElements", notificationsPage.getTotalElements());
+        return response;
+    }
+
+    private static Boolean readFilter(String filter) {
+        if ("unread".equals(filter)) {
+            return false;
+        }
+        return "read".equals(filter) ? true : null;
+    }
+
     @PostMapping("/{id}/read")
     public String markAsRead(@PathVariable Long id, @RequestParam(defaultValue = "false") boolean redirect) {
         notificationService.markAsRead(id);
@@ -78,15 +114,20 @@ public class NotificationController {
     @GetMapping("/count")
     @ResponseBody
     public Long getUnreadCount(@AuthenticationPrincipal UserDetails userDetails) {
-        User user = userService.findByUsername(userDetails.getUsername()).orElse(null);
-        return user != null ? notificationService.countUnreadNotifications(user) : 0L;
+        return userDetails != null ? notificationService.countUnreadNotifications(userDetails.getUsername()) : 0L;
     }
 
     // AJAX endpoint for latest notifications (for real-time updates)
     @GetMapping("/latest")
     @ResponseBody
     public List<Notification> getLatestNotifications(@AuthenticationPrincipal UserDetails userDetails) {
-        User user = userService.findByUsername(userDetails.getUsername()).orElse(null);
-        return user != null ? notificationService.getUserNotifications(user).stream().limit(10).toList() : new ArrayList<>();
+        return userDetails != null ? notificationService.getLatestNotifications(userDetails.getUsername(), 10) : new ArrayList<>();
+    }
+
+    // Server-sent events fallback for browsers that cannot open the /ws STOMP connection
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter stream(@AuthenticationPrincipal UserDetails userDetails) {
+        return notificationPushService.subscribe(userDetails.getUsername());
     }
 }
\ No newline at end of file
@@ -6,11 +6,16 @@ import savora.com.savora.model.OrderItem;
 import savora.com.savora.model.Product;
 import savora.com.savora.model.User;
 import savora.com.savora.service.CartService;
-import savora.com.savora.service.NotificationService;
+import savora.com.savora.service.CheckoutCommand;
+import savora.com.savora.service.IdempotencyService;
 import savora.com.savora.service.OrderService;
+import savora.com.savora.service.OrderSummary;
 import savora.com.savora.service.ProductService;
+import savora.com.savora.service.ShippingRateTable;
 import savora.com.savora.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
@@ -18,8 +23,10 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 @Controller
 @RequestMapping("/orders")
@@ -38,7 +45,10 @@ public class OrderController {
     private CartService cartService;
 
     @Autowired
-    private NotificationService notificationService;
+    private ShippingRateTable shippingRateTable;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
 
     @PostMapping("/create")
     public String createOrder(@RequestParam Long productId,
@@ -50,6 +60,7 @@ public class OrderController {
                              @RequestParam String shippingProvince,
                              @RequestParam String shippingPostalCode,
                              @RequestParam String shippingPhone,
+                             @RequestParam(required = false) String idempotencyKey,
                              @AuthenticationPrincipal UserDetails userDetails,
                              RedirectAttributes redirectAttributes) {
         try {
@@ -64,36 +75,19 @@ public class OrderController {
             List<OrderItem> items = new ArrayList<>();
             items.add(item);
 
-            Order order = orderService.createOrder(buyer, items);
-
-            // Update order with payment and shipping details
-            order.setPaymentMethod(paymentMethod);
-            order.setShippingMethod(shippingMethod);
-            order.setShippingAddress(shippingAddress);
-            order.setShippingCity(shippingCity);
-            order.setShippingProvince(shippingProvince);
-            order.setShippingPostalCode(shippingPostalCode);
-            order.setShippingPhone(shippingPhone);
-
-            // Calculate shipping cost based on method
-            switch (shippingMethod) {
-                case INSTANT:
-                    order.setShippingCost(java.math.BigDecimal.valueOf(25000));
-                    break;
-                case SAME_DAY:
-                    order.setShippingCost(java.math.BigDecimal.valueOf(15000));
-                    break;
-                case EXPRESS:
-                    order.setShippingCost(java.math.BigDecimal.valueOf(10000));
-                    break;
-                case REGULAR:
-                default:
-                    order.setShippingCost(java.math.BigDecimal.valueOf(5000));
-                    break;
+            // Shipping cost and total are set before the order is written
+            Supplier<List<Long>> placeOrder = () -> orderService.checkout(new CheckoutCommand(buyer, items, paymentMethod, shippingMethod)
+                    .shipTo(shippingAddress, shippingCity, shippingProvince, shippingPostalCode, shippingPhone))
+                    .stream().map(Order::getId).toList();
+
+            // A resubmitted request gets the order of the first submission instead of a new one
+            if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+                idempotencyService.execute("checkout:" + buyer.getId() + ":" + idempotencyKey, placeOrder);
+            } else {
+                idempotencyService.executeByFingerprint("order:" + buyer.getId() + ":" + productId + "x" + quantity
+                        + ":" + paymentMethod + ":" + shippingMethod, placeOrder);
             }
 
-            orderService.updateOrder(order);
-
             redirectAttributes.addFlashAttribute("successMessage", "Pesanan berhasil dibuat! Silakan lakukan pembayaran.");
             return "redirect:/buyer/orders";
         } catch (Exception e) {
@@ -106,20 +100,17 @@ public class OrderController {
     public String buyerOrders(@AuthenticationPrincipal UserDetails userDetails,
                               @RequestParam(required = false) Long highlight,
                               @RequestParam(required = false) Long showDetail,
+                              @RequestParam(required = false) Order.Status status,
+                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                              @RequestParam(defaultValue = "0") int page,
+                              @RequestParam(defaultValue = "10") int size,
                               Model model) {
         User buyer = userService.findByUsername(userDetails.getUsername()).orElse(null);
         if (buyer != null) {
-            List<Order> orders = orderService.getOrdersByBuyer(buyer);
-
-            // Add sequential order IDs for display
-            java.util.Map<Long, Integer> sequentialOrderIds = new java.util.HashMap<>();
-            for (Order order : orders) {
-                Integer sequentialId = orderService.getSequentialOrderIdForBuyer(order, buyer);
-                sequentialOrderIds.put(order.getId(), sequentialId);
-            }
+            Page<OrderSummary> orders = orderService.getOrderSummariesForBuyer(buyer, status, from, to, page, size);
 
-            model.addAttribute("orders", orders);
-            model.addAttribute("sequentialOrderIds", sequentialOrderIds);
+            addOrderPage(model, orders, status, from, to);
             model.addAttribute("highlightOrderId", highlight);
 
             // If showDetail parameter is provided, get the specific order details
@@ -136,6 +127,8 @@ public class OrderController {
     @GetMapping("/buyer/{id}/detail")
     public String buyerOrderDetail(@PathVariable Long id,
                                    @AuthenticationPrincipal UserDetails userDetails,
+                                   @RequestParam(defaultValue = "0") int page,
+                                   @RequestParam(defaultValue = "10") int size,
                                    Model model,
                                    RedirectAttributes redirectAttributes) {
         try {
@@ -146,18 +139,10 @@ public class OrderController {
                 throw new RuntimeException("Unauthorized access to order");
             }
 
-            List<Order> orders = orderService.getOrdersByBuyer(buyer);
-
-            // Add sequential order IDs for display
-            java.util.Map<Long, Integer> sequentialOrderIds = new java.util.HashMap<>();
-            for (Order o : orders) {
-                Integer sequentialId = orderService.getSequentialOrderIdForBuyer(o, buyer);
-                sequentialOrderIds.put(o.getId(), sequentialId);
-            }
+            Page<OrderSummary> orders = orderService.getOrderSummariesForBuyer(buyer, null, null, null, page, size);
 
             model.addAttribute("detailOrder", order);
-            model.addAttribute("orders", orders);
-            model.addAttribute("sequentialOrderIds", sequentialOrderIds);
+            addOrderPage(model, orders, null, null, null);
             return "buyer/orders";
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage", "Gagal mengambil detail pesanan: " + e.getMessage());
@@ -167,20 +152,18 @@ public class OrderController {
 
 
     @GetMapping("/supplier")
-    public String supplierOrders(@AuthenticationPrincipal UserDetails userDetails, Model model) {
+    public String supplierOrders(@AuthenticationPrincipal UserDetails userDetails,
+                                 @RequestParam(required = false) Order.Status status,
+                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                 @RequestParam(defaultValue = "0") int page,
+                                 @RequestParam(defaultValue = "10") int size,
+                                 Model model) {
         User supplier = userService.findByUsername(userDetails.getUsername()).orElse(null);
         if (supplier != null) {
-            List<Order> orders = orderService.getOrdersBySupplier(supplier);
-
-            // Add sequential order IDs for display
-            java.util.Map<Long, Integer> sequentialOrderIds = new java.util.HashMap<>();
-            for (Order order : orders) {
-                Integer sequentialId = orderService.getSequentialOrderIdForSupplier(order, supplier);
-                sequentialOrderIds.put(order.getId(), sequentialId);
-            }
+            Page<OrderSummary> orders = orderService.getOrderSummariesForSupplier(supplier, status, from, to, page, size);
 
-            model.addAttribute("orders", orders);
-            model.addAttribute("sequentialOrderIds", sequentialOrderIds);
+            addOrderPage(model, orders, status, from, to);
         }
         return "supplier/orders";
     }
@@ -198,18 +181,7 @@ public class OrderController {
                 throw new RuntimeException("Unauthorized access to order");
             }
 
-            List<Order> orders = orderService.getOrdersBySupplier(supplier);
-
-            // Add sequential order IDs for display
-            java.util.Map<Long, Integer> sequentialOrderIds = new java.util.HashMap<>();
-            for (Order o : orders) {
-                Integer sequentialId = orderService.getSequentialOrderIdForSupplier(o, supplier);
-                sequentialOrderIds.put(o.getId(), sequentialId);
-            }
-
             model.addAttribute("detailOrder", order);
-            model.addAttribute("orders", orders);
-            model.addAttribute("sequentialOrderIds", sequentialOrderIds);
             return "supplier/order-detail";
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage", "Gagal mengambil detail pesanan: " + e.getMessage());
@@ -254,20 +226,35 @@ public class OrderController {
         }
     }
 
+    @PostMapping("/status-bulk")
+    @ResponseBody
+    public org.springframework.http.ResponseEntity<?> updateOrderStatusBulk(@RequestParam List<Long> orderIds,
+                                                                           @RequestParam Order.Status status,
+                                                                           @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            User supplier = userService.findByUsername(userDetails.getUsername()).orElseThrow();
+            List<Long> updated = orderService.updateOrderStatuses(supplier, orderIds, status);
+            java.util.Set<Long> changed = new java.util.HashSet<>(updated);
+            List<Long> skipped = orderIds.stream().filter(id -> !changed.contains(id)).distinct().toList();
+            return org.springframework.http.ResponseEntity.ok(java.util.Map.of(
+                "status", "OK",
+                "message", updated.size() + " pesanan diperbarui",
+                "updatedIds", updated,
+                "skippedIds", skipped,
+                "newStatus", status.name()
+            ));
+        } catch (Exception e) {
+            return org.springframework.http.ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
     @PostMapping("/{id}/payment")
     public String updatePaymentStatus(@PathVariable Long id,
                                       @RequestParam Order.PaymentStatus paymentStatus,
                                       RedirectAttributes redirectAttributes) {
         try {
             Order order = orderService.getOrderById(id).orElseThrow(() -> new RuntimeException("Order not found"));
-            order.setPaymentStatus(paymentStatus);
-            Order updatedOrder = orderService.updateOrder(order);
-
-            // Send notification if payment is approved
-            if (paymentStatus == Order.PaymentStatus.PAID) {
-                notificationService.notifyPaymentApproved(updatedOrder.getBuyer(),
-                    updatedOrder.getId().toString(), updatedOrder.getTotalAmount().doubleValue());
-            }
+            orderService.updatePaymentStatus(order, paymentStatus);
 
             redirectAttributes.addFlashAttribute("successMessage", "Status pembayaran berhasil diperbarui!");
         } catch (Exception e) {
@@ -288,14 +275,7 @@ public class OrderController {
                 throw new RuntimeException("Unauthorized access to order");
             }
 
-            order.setPaymentStatus(Order.PaymentStatus.PAID);
-            order.setStatus(Order.Status.CONFIRMED);
-            Order updatedOrder = orderService.updateOrder(order);
-
-            // Send payment confirmation notification
-            notificationService.notifyPaymentConfirmed(updatedOrder.getBuyer(), updatedOrder.getSupplier(),
-                updatedOrder.getId().toString(), updatedOrder.getTotalAmount().doubleValue(),
-                updatedOrder.getPaymentMethod().name());
+            orderService.confirmPayment(order);
 
             redirectAttributes.addFlashAttribute("successMessage", "Pembayaran berhasil dikonfirmasi! Pesanan Anda sedang diproses.");
             return "redirect:/buyer/orders";
@@ -322,8 +302,7 @@ public class OrderController {
                 throw new RuntimeException("Pesanan tidak dapat dibatalkan pada status saat ini");
             }
 
-            order.setStatus(Order.Status.CANCELLED);
-            orderService.updateOrder(order);
+            orderService.cancelOrder(order);
 
             redirectAttributes.addFlashAttribute("successMessage", "Pesanan berhasil dibatalkan.");
             return "redirect:/buyer/orders";
@@ -356,10 +335,7 @@ public class OrderController {
                                     RedirectAttributes redirectAttributes) {
         try {
             Order order = orderService.getOrderById(id).orElseThrow();
-            order.setTrackingNumber(trackingNumber);
-            order.setCourierName(courierName);
-            order.setStatus(Order.Status.SHIPPED);
-            orderService.updateOrder(order);
+            orderService.updateShippingInfo(order, trackingNumber, courierName);
             redirectAttributes.addFlashAttribute("successMessage", "Informasi pengiriman berhasil diperbarui!");
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage", "Gagal memperbarui informasi pengiriman: " + e.getMessage());
@@ -402,6 +378,12 @@ public class OrderController {
             model.addAttribute("cartItems", cartItems);
             model.addAttribute("totalQuantity", totalQuantity);
             model.addAttribute("totalPrice", totalPrice);
+            model.addAttribute("shippingRates", shippingRateTable.asMap());
+            model.addAttribute("idempotencyKey", idempotencyService.newToken());
+            model.addAttribute("supplierCount", cartItems.stream()
+                    .map(cart -> cart.getProduct().getSupplier().getId())
+                    .distinct()
+                    .count());
             model.addAttribute("user", buyer);
 
             return "buyer/checkout";
@@ -411,4 +393,14 @@ public class OrderController {
             return "redirect:/cart";
         }
     }
-}
\ No newline at end of file
+
+    // Current page of order summaries plus the filters that produced it, for the list and pagination links
+    static void addOrderPage(Model model, Page<OrderSummary> orders, Order.Status status, LocalDate from, LocalDate to) {
+        model.addAttribute("orders", orders.getContent());
+        model.addAttribute("ordersPage", orders);
+        model.addAttribute("statusFilter", status);
+        model.addAttribute("fromDate", from);
+        model.addAttribute("toDate", to);
+        model.addAttribute("orderStatuses", Order.Status.values());
+    }
+}
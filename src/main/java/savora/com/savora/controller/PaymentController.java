@@ -5,6 +5,8 @@ import savora.com.savora.model.Order;
 import savora.com.savora.model.OrderItem;
 import savora.com.savora.model.User;
 import savora.com.savora.service.CartService;
+import savora.com.savora.service.CheckoutCommand;
+import savora.com.savora.service.IdempotencyService;
 import savora.com.savora.service.OrderService;
 import savora.com.savora.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +21,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 @Controller
 @RequestMapping("/payment")
@@ -33,7 +36,8 @@ public class PaymentController {
     @Autowired
     private CartService cartService;
 
-
+    @Autowired
+    private IdempotencyService idempotencyService;
 
     @PostMapping("/create-order")
     public String createOrder(@RequestParam String paymentMethod,
@@ -45,6 +49,7 @@ public class PaymentController {
                              @RequestParam String shippingPhone,
                              @RequestParam(required = false) String voucherCode,
                              @RequestParam(required = false) String bankSelection,
+                             @RequestParam(required = false) String idempotencyKey,
                              @AuthenticationPrincipal UserDetails userDetails,
                              RedirectAttributes redirectAttributes) {
         try {
@@ -52,68 +57,29 @@ public class PaymentController {
 
             // Get cart items
             List<Cart> cartItems = cartService.getCartItems(buyer);
-            if (cartItems.isEmpty()) {
+
+            // A resubmitted form (double click, browser retry) gets the orders of the first submission
+            Supplier<List<Long>> placeOrders = () -> placeOrders(buyer, cartItems, paymentMethod, shippingMethod,
+                    shippingAddress, shippingCity, shippingProvince, shippingPostalCode, shippingPhone);
+            List<Long> orderIds = idempotencyKey != null && !idempotencyKey.isBlank()
+                    ? idempotencyService.execute("checkout:" + buyer.getId() + ":" + idempotencyKey, placeOrders)
+                    : idempotencyService.executeByFingerprint("checkout:" + buyer.getId() + ":" + cartFingerprint(cartItems), placeOrders);
+            if (orderIds.isEmpty()) {
                 redirectAttributes.addFlashAttribute("error", "Keranjang Anda kosong!");
                 return "redirect:/cart";
             }
 
-            // Create order items from cart
-            List<OrderItem> orderItems = new java.util.ArrayList<>();
-            for (Cart cart : cartItems) {
-                OrderItem item = new OrderItem();
-                item.setProduct(cart.getProduct());
-                item.setQuantity(cart.getQuantity());
-                item.setPrice(cart.getUnitPrice());
-                orderItems.add(item);
-            }
-
-            // Create order
-            Order order = orderService.createOrder(buyer, orderItems);
-
-            // Update order with payment and shipping details
-            order.setPaymentMethod(Order.PaymentMethod.valueOf(paymentMethod));
-            order.setShippingMethod(Order.ShippingMethod.valueOf(shippingMethod));
-            order.setShippingAddress(shippingAddress);
-            order.setShippingCity(shippingCity);
-            order.setShippingProvince(shippingProvince);
-            order.setShippingPostalCode(shippingPostalCode);
-            order.setShippingPhone(shippingPhone);
-
-            // Calculate shipping cost based on method
-            Order.ShippingMethod shippingMethodEnum = Order.ShippingMethod.valueOf(shippingMethod);
-            switch (shippingMethodEnum) {
-                case INSTANT:
-                    order.setShippingCost(java.math.BigDecimal.valueOf(25000));
-                    break;
-                case SAME_DAY:
-                    order.setShippingCost(java.math.BigDecimal.valueOf(15000));
-                    break;
-                case EXPRESS:
-                    order.setShippingCost(java.math.BigDecimal.valueOf(10000));
-                    break;
-                case REGULAR:
-                default:
-                    order.setShippingCost(java.math.BigDecimal.valueOf(5000));
-                    break;
-            }
-
-            // Update total amount including shipping
-            order.setTotalAmount(order.getSubtotalAmount().add(order.getShippingCost()));
-
             // Apply voucher discount if provided (placeholder for future implementation)
             if (voucherCode != null && !voucherCode.trim().isEmpty()) {
                 // TODO: Implement voucher validation and discount calculation
                 redirectAttributes.addFlashAttribute("info", "Kode voucher '" + voucherCode + "' akan divalidasi setelah pembayaran.");
             }
 
-            orderService.updateOrder(order);
-
-            // Clear cart after successful order creation
-            cartService.clearCart(buyer);
-
-            redirectAttributes.addFlashAttribute("successMessage", "Pesanan berhasil dibuat! Silakan lakukan pembayaran.");
-            redirectAttributes.addAttribute("highlight", order.getId());
-            redirectAttributes.addAttribute("showDetail", order.getId());
+            redirectAttributes.addFlashAttribute("successMessage", orderIds.size() > 1
+                    ? orderIds.size() + " pesanan berhasil dibuat (satu per supplier)! Silakan lakukan pembayaran."
+                    : "Pesanan berhasil dibuat! Silakan lakukan pembayaran.");
+            redirectAttributes.addAttribute("highlight", orderIds.get(0));
+            redirectAttributes.addAttribute("showDetail", orderIds.get(0));
 
             // Redirect to buyer orders page with success message and show order details
             return "redirect:/buyer/orders";
@@ -127,4 +93,39 @@ public class PaymentController {
             return "redirect:/buyer/orders";
         }
     }
+
+    // Creates one order per supplier from the cart and empties it in the same transaction; no orders for an empty cart
+    private List<Long> placeOrders(User buyer, List<Cart> cartItems, String paymentMethod, String shippingMethod,
+                                   String shippingAddress, String shippingCity, String shippingProvince,
+                                   String shippingPostalCode, String shippingPhone) {
+        if (cartItems.isEmpty()) {
+            return List.of();
+        }
+
+        // Create order items from cart
+        List<OrderItem> orderItems = new java.util.ArrayList<>();
+        for (Cart cart : cartItems) {
+            OrderItem item = new OrderItem();
+            item.setProduct(cart.getProduct());
+            item.setQuantity(cart.getQuantity());
+            item.setPrice(cart.getUnitPrice());
+            orderItems.add(item);
+        }
+
+        // One order per supplier in the cart, each written once with its shipping cost and total
+        List<Order> orders = orderService.checkout(new CheckoutCommand(buyer, orderItems,
+                Order.PaymentMethod.valueOf(paymentMethod), Order.ShippingMethod.valueOf(shippingMethod))
+                .shipTo(shippingAddress, shippingCity, shippingProvince, shippingPostalCode, shippingPhone)
+                .fromCart());
+
+        return orders.stream().map(Order::getId).toList();
+    }
+
+    private static String cartFingerprint(List<Cart> cartItems) {
+        StringBuilder fingerprint = new StringBuilder();
+        for (Cart cart : cartItems) {
+            fingerprint.append(cart.getProduct().getId()).append('x').append(cart.getQuantity()).append(',');
+        }
+        return fingerprint.toString();
+    }
 }
\ No newline at end of file
@@ -141,6 +141,7 @@ public class ProductController {
             // Set supplier and ID
             product.setSupplier(supplier);
             product.setId(id);
+            product.setSupplierProductId(existingProduct.getSupplierProductId());
 
             // Convert price string to BigDecimal
             if (priceStr != null && !priceStr.trim().isEmpty()) {
@@ -185,6 +186,17 @@ public class ProductController {
                 product.setImageUrl(existingProduct.getImageUrl());
             }
 
+            // Sales and rating summaries are maintained by the order and review flows, not the form
+            product.setSalesCount(existingProduct.getSalesCount());
+            product.setAverageRating(existingProduct.getAverageRating());
+            product.setReviewCount(existingProduct.getReviewCount());
+            product.setRatingSum(existingProduct.getRatingSum());
+            product.setOneStarCount(existingProduct.getOneStarCount());
+            product.setTwoStarCount(existingProduct.getTwoStarCount());
+            product.setThreeStarCount(existingProduct.getThreeStarCount());
+            product.setFourStarCount(existingProduct.getFourStarCount());
+            product.setFiveStarCount(existingProduct.getFiveStarCount());
+
             productService.saveProduct(product);
             redirectAttributes.addFlashAttribute("successMessage", "Produk berhasil diperbarui!");
         } catch (IOException e) {
@@ -240,10 +252,6 @@ public class ProductController {
                 product.setStockQuantity(product.getStock());
             }
 
-            // Generate supplier product ID (sequential per supplier)
-            Integer nextSupplierProductId = productService.getNextSupplierProductId(supplier);
-            product.setSupplierProductId(nextSupplierProductId);
-
             // Handle file upload
             if (imageFile != null && !imageFile.isEmpty()) {
                 if (fileUploadService.isValidImageFile(imageFile)) {
@@ -67,7 +67,7 @@ public class ReviewController {
         Product product = productService.getProductById(productId).orElse(null);
         if (product != null) {
             List<Review> reviews = reviewService.getReviewsByProduct(product);
-            double averageRating = reviewService.getAverageRating(product);
+            double averageRating = product.getAverageRating() != null ? product.getAverageRating() : 0.0;
             model.addAttribute("product", product);
             model.addAttribute("reviews", reviews);
             model.addAttribute("averageRating", averageRating);
@@ -2,6 +2,8 @@ package savora.com.savora.controller;
 
 import savora.com.savora.model.Review;
 import savora.com.savora.model.User;
+import savora.com.savora.repository.ProductRepository;
+import savora.com.savora.service.ProductService;
 import savora.com.savora.service.ReviewService;
 import savora.com.savora.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +26,9 @@ public class SupplierReviewsController {
     @Autowired
     private ReviewService reviewService;
 
+    @Autowired
+    private ProductService productService;
+
     @GetMapping("/reviews")
     public String viewSupplierReviews(@AuthenticationPrincipal UserDetails userDetails, Model model) {
         User supplier = userService.findByUsername(userDetails.getUsername()).orElse(null);
@@ -32,22 +37,18 @@ public class SupplierReviewsController {
         }
 
         // Get all reviews for products owned by this supplier
-        List<Review> supplierReviews = reviewService.getAllReviews().stream()
-                .filter(review -> review.getProduct().getSupplier().getId().equals(supplier.getId()))
-                .toList();
+        List<Review> supplierReviews = reviewService.getReviewsBySupplier(supplier);
 
-        // Calculate review statistics
-        long totalReviews = supplierReviews.size();
-        double averageRating = supplierReviews.stream()
-                .mapToDouble(Review::getRating)
-                .average()
-                .orElse(0.0);
+        // Review statistics come from the rating summaries kept on each product
+        ProductRepository.RatingHistogram histogram = productService.getRatingHistogram(supplier);
+        long totalReviews = histogram.getReviewCount();
+        double averageRating = histogram.getAverageRating();
 
-        long fiveStarReviews = supplierReviews.stream().filter(r -> r.getRating() == 5).count();
-        long fourStarReviews = supplierReviews.stream().filter(r -> r.getRating() == 4).count();
-        long threeStarReviews = supplierReviews.stream().filter(r -> r.getRating() == 3).count();
-        long twoStarReviews = supplierReviews.stream().filter(r -> r.getRating() == 2).count();
-        long oneStarReviews = supplierReviews.stream().filter(r -> r.getRating() == 1).count();
+        long fiveStarReviews = histogram.getFiveStarCount();
+        long fourStarReviews = histogram.getFourStarCount();
+        long threeStarReviews = histogram.getThreeStarCount();
+        long twoStarReviews = histogram.getTwoStarCount();
+        long oneStarReviews = histogram.getOneStarCount();
 
         // Ensure default values if no reviews
         if (supplierReviews.isEmpty()) {
@@ -0,0 +1,33 @@
+package savora.com.savora.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// Progress of a one-time data migration; lastProcessedId lets an interrupted run resume
+@Entity
+@Table(name = "data_migrations")
+@Data
+public class DataMigration {
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.RUNNING;
+
+    private Long lastProcessedId;
+
+    @Column(nullable = false)
+    private Integer batchCount = 0;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt = LocalDateTime.now();
+
+    private LocalDateTime completedAt;
+
+    public enum Status {
+        RUNNING, COMPLETED
+    }
+}
@@ -5,7 +5,13 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+    // Inbox pages (all, or unread/read only) and unread counts, newest first
+    @Index(name = "idx_notifications_user_read_created", columnList = "user_id, is_read, created_at"),
+    @Index(name = "idx_notifications_user_created", columnList = "user_id, created_at"),
+    // Retention: read notifications older than the cutoff
+    @Index(name = "idx_notifications_read_created", columnList = "is_read, created_at")
+})
 @Data
 public class Notification {
     @Id
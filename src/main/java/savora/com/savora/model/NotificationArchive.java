@@ -0,0 +1,37 @@
+package savora.com.savora.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// Read notification moved out of notifications by the retention job; keeps its original id
+@Entity
+@Table(name = "notification_archive", indexes = {
+    @Index(name = "idx_notification_archive_user_created", columnList = "user_id, created_at")
+})
+@Data
+public class NotificationArchive {
+    @Id
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(columnDefinition = "TEXT")
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Notification.Type type;
+
+    private String orderId;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
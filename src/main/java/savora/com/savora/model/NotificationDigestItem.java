@@ -0,0 +1,27 @@
+package savora.com.savora.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// A supplier's new order awaiting its notification, written with the order; deleted once notified or digested
+@Entity
+@Table(name = "notification_digest_items", indexes = {
+    @Index(name = "idx_notification_digest_items_created", columnList = "created_at")
+})
+@Data
+public class NotificationDigestItem {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    private String orderId;
+    private String productName;
+    private Integer quantity;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -8,7 +8,13 @@ import java.util.List;
 import java.util.Set;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    // Order lists per buyer/supplier, newest first, optionally filtered by status
+    @Index(name = "idx_orders_buyer_created", columnList = "buyer_id, created_at, id"),
+    @Index(name = "idx_orders_buyer_status_created", columnList = "buyer_id, status, created_at, id"),
+    @Index(name = "idx_orders_supplier_created", columnList = "supplier_id, created_at, id"),
+    @Index(name = "idx_orders_supplier_status_created", columnList = "supplier_id, status, created_at, id")
+})
 @Data
 public class Order {
     @Id
@@ -26,6 +32,10 @@ public class Order {
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL)
     private List<OrderItem> orderItems;
 
+    // Order numbers shown to the buyer and the supplier, assigned by SequenceAllocator at insert
+    private Integer buyerSequence;
+    private Integer supplierSequence;
+
     @Column(nullable = false)
     private BigDecimal subtotalAmount;
 
@@ -69,7 +79,18 @@ public class Order {
     }
 
     public enum Status {
-        PENDING, CONFIRMED, PROCESSING, SHIPPED, DELIVERED, CANCELLED
+        PENDING, CONFIRMED, PROCESSING, SHIPPED, DELIVERED, CANCELLED;
+
+        // Allowed lifecycle moves; DELIVERED and CANCELLED are final
+        public boolean canTransitionTo(Status next) {
+            return switch (this) {
+                case PENDING -> next == CONFIRMED || next == PROCESSING || next == CANCELLED;
+                case CONFIRMED -> next == PROCESSING || next == SHIPPED || next == CANCELLED;
+                case PROCESSING -> next == SHIPPED || next == CANCELLED;
+                case SHIPPED -> next == DELIVERED;
+                case DELIVERED, CANCELLED -> false;
+            };
+        }
     }
 
     public enum PaymentMethod {
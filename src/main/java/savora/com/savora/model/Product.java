@@ -4,12 +4,27 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.DynamicUpdate;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "products")
+// Listing indexes, one per sort/filter combination planned by ProductQueryPlanner
+@Table(name = "products", indexes = {
+    @Index(name = "idx_products_price", columnList = "price, id"),
+    @Index(name = "idx_products_created", columnList = "created_at, id"),
+    @Index(name = "idx_products_name", columnList = "name, id"),
+    @Index(name = "idx_products_category", columnList = "category_id, id"),
+    @Index(name = "idx_products_category_price", columnList = "category_id, price, id"),
+    @Index(name = "idx_products_category_created", columnList = "category_id, created_at, id"),
+    @Index(name = "idx_products_category_name", columnList = "category_id, name, id"),
+    @Index(name = "idx_products_supplier", columnList = "supplier_id, id"),
+    @Index(name = "idx_products_supplier_price", columnList = "supplier_id, price, id"),
+    @Index(name = "idx_products_supplier_created", columnList = "supplier_id, created_at, id"),
+    @Index(name = "idx_products_supplier_name", columnList = "supplier_id, name, id")
+})
+@DynamicUpdate
 @Data
 @EqualsAndHashCode(exclude = "reviews")
 public class Product {
@@ -58,10 +73,19 @@ public class Product {
 
     private LocalDateTime updatedAt;
 
-    // Analytics fields
+    // Analytics fields, maintained at write time by ReviewService and OrderService
     private Integer stock = 0;
     private Integer salesCount = 0;
     private Double averageRating = 0.0;
+    private Integer reviewCount = 0;
+    private Integer ratingSum = 0;
+
+    // Per-star review histogram
+    private Integer oneStarCount = 0;
+    private Integer twoStarCount = 0;
+    private Integer threeStarCount = 0;
+    private Integer fourStarCount = 0;
+    private Integer fiveStarCount = 0;
 
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Review> reviews;
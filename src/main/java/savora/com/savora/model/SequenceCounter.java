@@ -0,0 +1,24 @@
+package savora.com.savora.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// Next unreserved value of a per-owner sequence, e.g. order numbers of one buyer
+@Entity
+@Table(name = "sequence_counters",
+       uniqueConstraints = @UniqueConstraint(name = "uk_sequence_counters", columnNames = {"sequence_name", "owner_id"}))
+@Data
+public class SequenceCounter {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sequence_name", nullable = false, length = 50)
+    private String sequenceName;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(nullable = false)
+    private Long nextValue;
+}
@@ -0,0 +1,48 @@
+package savora.com.savora.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// Stock taken off a product for an order; released back if the order is never paid or confirmed
+@Entity
+@Table(name = "stock_reservations", indexes = {
+    @Index(name = "idx_stock_reservations_order", columnList = "order_id, status"),
+    @Index(name = "idx_stock_reservations_reference", columnList = "reference"),
+    @Index(name = "idx_stock_reservations_expiry", columnList = "status, expires_at")
+})
+@Data
+public class StockReservation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Null until the checkout's orders are inserted; reference identifies the order until then
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(length = 36)
+    private String reference;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.HELD;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    private LocalDateTime resolvedAt;
+
+    public enum Status {
+        HELD, CONFIRMED, RELEASED
+    }
+}
@@ -0,0 +1,53 @@
+package savora.com.savora.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Pre-aggregated order metrics per supplier per day, keyed by the order creation date
+@Entity
+@Table(name = "supplier_daily_stats",
+       uniqueConstraints = @UniqueConstraint(name = "uk_supplier_daily_stats", columnNames = {"supplier_id", "stat_date"}))
+@Data
+public class SupplierDailyStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "supplier_id", nullable = false)
+    private Long supplierId;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(nullable = false)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Integer orderCount = 0;
+
+    // Buyers whose first order with this supplier was placed on this day,
+    // so the sum over all days is the number of distinct customers
+    @Column(nullable = false)
+    private Integer newCustomerCount = 0;
+
+    // Current status of the orders created on this day
+    @Column(nullable = false)
+    private Integer pendingCount = 0;
+
+    @Column(nullable = false)
+    private Integer confirmedCount = 0;
+
+    @Column(nullable = false)
+    private Integer processingCount = 0;
+
+    @Column(nullable = false)
+    private Integer shippedCount = 0;
+
+    @Column(nullable = false)
+    private Integer deliveredCount = 0;
+
+    @Column(nullable = false)
+    private Integer cancelledCount = 0;
+}
@@ -0,0 +1,36 @@
+package savora.com.savora.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Pre-aggregated sales per supplier product per day, keyed by the order creation date
+@Entity
+@Table(name = "supplier_product_daily_stats",
+       uniqueConstraints = @UniqueConstraint(name = "uk_supplier_product_daily_stats", columnNames = {"supplier_id", "product_id", "stat_date"}))
+@Data
+public class SupplierProductDailyStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "supplier_id", nullable = false)
+    private Long supplierId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(nullable = false)
+    private Integer unitsSold = 0;
+
+    @Column(nullable = false)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    // Number of orders containing this product
+    @Column(nullable = false)
+    private Integer orderCount = 0;
+}
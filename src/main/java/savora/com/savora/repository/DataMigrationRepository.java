@@ -0,0 +1,17 @@
+package savora.com.savora.repository;
+
+import savora.com.savora.model.DataMigration;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Optional;
+
+public interface DataMigrationRepository extends JpaRepository<DataMigration, String> {
+
+    // Row lock held for one batch, so concurrent instances never process the same rows
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM DataMigration m WHERE m.name = :name")
+    Optional<DataMigration> findByNameForUpdate(@Param("name") String name);
+}
@@ -0,0 +1,44 @@
+package savora.com.savora.repository;
+
+import savora.com.savora.model.EmailOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // Due messages, oldest first, locked with SKIP LOCKED so concurrent workers take disjoint batches;
+    // SENDING rows whose claim lapsed (worker died mid-send) are due again
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EmailOutbox e WHERE e.status IN :statuses AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt ASC, e.id ASC")
+    List<EmailOutbox> findDueForUpdate(@Param("statuses") Collection<EmailOutbox.Status> statuses,
+                                       @Param("now") LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.nextAttemptAt = :claimUntil WHERE e.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("status") EmailOutbox.Status status,
+              @Param("claimUntil") LocalDateTime claimUntil);
+
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.sentAt = :now, e.attempts = e.attempts + 1, e.lastError = NULL " +
+           "WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("status") EmailOutbox.Status status, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.attempts = :attempts, e.nextAttemptAt = :nextAttemptAt, " +
+           "e.lastError = :lastError WHERE e.id = :id")
+    int recordFailure(@Param("id") Long id, @Param("status") EmailOutbox.Status status, @Param("attempts") int attempts,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("lastError") String lastError);
+
+    long countByStatus(EmailOutbox.Status status);
+}
@@ -0,0 +1,28 @@
+package savora.com.savora.repository;
+
+import savora.com.savora.model.NotificationDigestItem;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface NotificationDigestItemRepository extends JpaRepository<NotificationDigestItem, Long> {
+
+    // Locks the items still pending, so only one delivery writes them
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM NotificationDigestItem i WHERE i.id IN :ids ORDER BY i.id ASC")
+    List<NotificationDigestItem> findByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    // Items no instance is holding any more (process restarted or a delivery failed)
+    List<NotificationDigestItem> findByCreatedAtBeforeOrderByUserIdAscIdAsc(LocalDateTime cutoff, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM NotificationDigestItem i WHERE i.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+}
@@ -2,19 +2,36 @@ package savora.com.savora.repository;
 
 import savora.com.savora.model.Notification;
 import savora.com.savora.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 
-public interface NotificationRepository extends JpaRepository<Notification, Long> {
-    List<Notification> findByUserOrderByCreatedAtDesc(User user);
-    List<Notification> findByUserAndIsReadOrderByCreatedAtDesc(User user, Boolean isRead);
+public interface NotificationRepository extends JpaRepository<Notification, Long>, NotificationRepositoryCustom {
+    // Inbox pages; sorted by the caller, served by idx_notifications_user_created / _user_read_created
+    Page<Notification> findByUserUsername(String username, Pageable pageable);
+    Page<Notification> findByUserUsernameAndIsRead(String username, Boolean isRead, Pageable pageable);
 
-    Long countByUserAndIsRead(User user, Boolean isRead);
+    // Newest notifications of a user by username, without loading the user first
+    List<Notification> findByUserUsernameOrderByCreatedAtDesc(String username, Pageable pageable);
+
+    long countByUserUsernameAndIsRead(String username, Boolean isRead);
+
+    // Unread counts of several users at once; users without unread notifications are absent
+    @Query("SELECT u.username AS username, COUNT(n) AS unread FROM Notification n JOIN n.user u " +
+           "WHERE n.isRead = false AND u.username IN :usernames GROUP BY u.username")
+    List<UnreadCount> countUnreadByUsernames(@Param("usernames") Collection<String> usernames);
 
     @Modifying
     @Query("UPDATE Notification n SET n.isRead = true WHERE n.user = :user AND n.isRead = false")
     int markAllAsReadByUser(@Param("user") User user);
-}
\ No newline at end of file
+
+    interface UnreadCount {
+        String getUsername();
+        long getUnread();
+    }
+}
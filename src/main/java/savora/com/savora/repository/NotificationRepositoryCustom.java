@@ -0,0 +1,14 @@
+package savora.com.savora.repository;
+
+import savora.com.savora.model.Notification;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface NotificationRepositoryCustom {
+
+    // Inserts many notifications in one JDBC batch
+    void insertAll(List<Notification> notifications);
+
+    // Moves up to limit read notifications created before the cutoff into notification_archive; returns how many
+    int archiveRead(LocalDateTime cutoff, int limit);
+}
@@ -0,0 +1,66 @@
+package savora.com.savora.repository;
+
+import savora.com.savora.model.Notification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class NotificationRepositoryImpl implements NotificationRepositoryCustom {
+
+    private static final String INSERT_NOTIFICATION = "INSERT INTO notifications (user_id, title, message, type, is_read, " +
+            "created_at, order_id, product_name, quantity, action_url, action_text) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_ARCHIVABLE = "SELECT id FROM notifications " +
+            "WHERE is_read = TRUE AND created_at < ? ORDER BY created_at LIMIT ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            args.add(new Object[] {
+                    notification.getUser().getId(),
+                    notification.getTitle(),
+                    notification.getMessage(),
+                    notification.getType().name(),
+                    Boolean.TRUE.equals(notification.getIsRead()),
+                    Timestamp.valueOf(notification.getCreatedAt()),
+                    notification.getOrderId(),
+                    notification.getProductName(),
+                    notification.getQuantity(),
+                    notification.getActionUrl(),
+                    notification.getActionText()
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_NOTIFICATION, args);
+    }
+
+    @Override
+    public int archiveRead(LocalDateTime cutoff, int limit) {
+        List<Long> ids = jdbcTemplate.queryForList(SELECT_ARCHIVABLE, Long.class, Timestamp.valueOf(cutoff), limit);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String in = String.join(",", Collections.nCopies(ids.size(), "?"));
+        Object[] copyArgs = new Object[ids.size() + 1];
+        copyArgs[0] = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < ids.size(); i++) {
+            copyArgs[i + 1] = ids.get(i);
+        }
+        // IGNORE: two instances running the job at once may pick the same ids
+        jdbcTemplate.update("INSERT IGNORE INTO notification_archive (id, user_id, title, message, type, order_id, " +
+                "created_at, archived_at) SELECT id, user_id, title, message, type, order_id, created_at, ? " +
+                "FROM notifications WHERE id IN (" + in + ")", copyArgs);
+        return jdbcTemplate.update("DELETE FROM notifications WHERE id IN (" + in + ")", ids.toArray());
+    }
+}
@@ -2,12 +2,134 @@ package savora.com.savora.repository;
 
 import savora.com.savora.model.Order;
 import savora.com.savora.model.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
     List<Order> findByBuyer(User buyer);
     List<Order> findBySupplier(User supplier);
     List<Order> findByBuyerAndStatus(User buyer, Order.Status status);
     List<Order> findBySupplierAndStatus(User supplier, Order.Status status);
-}
\ No newline at end of file
+    List<Order> findTop10BySupplierOrderByCreatedAtDesc(User supplier);
+
+    boolean existsBySupplier(User supplier);
+    long countByBuyer(User buyer);
+    long countBySupplier(User supplier);
+
+    // Orders of the given buyers or suppliers in the order they were placed, for numbering them
+    @Query("SELECT o FROM Order o WHERE o.buyer.id IN :buyerIds ORDER BY o.createdAt ASC, o.id ASC")
+    List<Order> findByBuyerIdsInPlacementOrder(@Param("buyerIds") Collection<Long> buyerIds);
+
+    @Query("SELECT o FROM Order o WHERE o.supplier.id IN :supplierIds ORDER BY o.createdAt ASC, o.id ASC")
+    List<Order> findBySupplierIdsInPlacementOrder(@Param("supplierIds") Collection<Long> supplierIds);
+
+    @Query("SELECT MAX(o.buyerSequence) FROM Order o WHERE o.buyer = :buyer")
+    Integer findMaxBuyerSequence(@Param("buyer") User buyer);
+
+    @Query("SELECT MAX(o.supplierSequence) FROM Order o WHERE o.supplier = :supplier")
+    Integer findMaxSupplierSequence(@Param("supplier") User supplier);
+    long countByBuyerAndSupplier(User buyer, User supplier);
+    Optional<Order> findFirstByBuyerAndSupplierOrderByCreatedAtAscIdAsc(User buyer, User supplier);
+
+    // Suppliers with at least one order, for the rollup backfill
+    @Query("SELECT DISTINCT o.supplier.id FROM Order o WHERE o.supplier.id > :afterId ORDER BY o.supplier.id ASC")
+    List<Long> findSupplierIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Units ordered per product, used to rebuild Product.salesCount
+    @Query("SELECT oi.product.id AS productId, SUM(oi.quantity) AS quantity " +
+           "FROM OrderItem oi WHERE oi.product.id IN :productIds GROUP BY oi.product.id")
+    List<ProductQuantity> sumQuantityByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    // The supplier's orders among the ids, locked in id order until the bulk update commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o JOIN FETCH o.buyer WHERE o.supplier = :supplier AND o.id IN :ids ORDER BY o.id ASC")
+    List<Order> findBySupplierAndIdIn(@Param("supplier") User supplier, @Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :now WHERE o.id IN :ids")
+    int updateStatusByIds(@Param("ids") Collection<Long> ids, @Param("status") Order.Status status,
+                          @Param("now") LocalDateTime now);
+
+    // Applies a status/payment/shipping change only if the order is still in the state it was read in
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :toStatus, o.paymentStatus = :toPayment, " +
+           "o.trackingNumber = :trackingNumber, o.courierName = :courierName, o.updatedAt = :now " +
+           "WHERE o.id = :id AND o.status = :fromStatus " +
+           "AND (o.paymentStatus = :fromPayment OR (:fromPayment IS NULL AND o.paymentStatus IS NULL))")
+    int applyTransition(@Param("id") Long id,
+                        @Param("fromStatus") Order.Status fromStatus, @Param("fromPayment") Order.PaymentStatus fromPayment,
+                        @Param("toStatus") Order.Status toStatus, @Param("toPayment") Order.PaymentStatus toPayment,
+                        @Param("trackingNumber") String trackingNumber, @Param("courierName") String courierName,
+                        @Param("now") LocalDateTime now);
+
+    // Order list rows, newest first; served by the (buyer|supplier, status, created_at) indexes on orders
+    @Query(value = "SELECT o.id AS id, o.buyerSequence AS buyerSequence, o.supplierSequence AS supplierSequence, " +
+           "o.status AS status, o.paymentStatus AS paymentStatus, o.totalAmount AS totalAmount, o.createdAt AS createdAt, " +
+           "o.shippingAddress AS shippingAddress, b.companyName AS buyerName, s.companyName AS supplierName " +
+           "FROM Order o JOIN o.buyer b JOIN o.supplier s " +
+           "WHERE o.buyer = :buyer AND (:status IS NULL OR o.status = :status) " +
+           "AND (:from IS NULL OR o.createdAt >= :from) AND (:to IS NULL OR o.createdAt < :to) " +
+           "ORDER BY o.createdAt DESC, o.id DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o " +
+           "WHERE o.buyer = :buyer AND (:status IS NULL OR o.status = :status) " +
+           "AND (:from IS NULL OR o.createdAt >= :from) AND (:to IS NULL OR o.createdAt < :to)")
+    Page<OrderRow> findRowsByBuyer(@Param("buyer") User buyer, @Param("status") Order.Status status,
+                                   @Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Pageable pageable);
+
+    @Query(value = "SELECT o.id AS id, o.buyerSequence AS buyerSequence, o.supplierSequence AS supplierSequence, " +
+           "o.status AS status, o.paymentStatus AS paymentStatus, o.totalAmount AS totalAmount, o.createdAt AS createdAt, " +
+           "o.shippingAddress AS shippingAddress, b.companyName AS buyerName, s.companyName AS supplierName " +
+           "FROM Order o JOIN o.buyer b JOIN o.supplier s " +
+           "WHERE o.supplier = :supplier AND (:status IS NULL OR o.status = :status) " +
+           "AND (:from IS NULL OR o.createdAt >= :from) AND (:to IS NULL OR o.createdAt < :to) " +
+           "ORDER BY o.createdAt DESC, o.id DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o " +
+           "WHERE o.supplier = :supplier AND (:status IS NULL OR o.status = :status) " +
+           "AND (:from IS NULL OR o.createdAt >= :from) AND (:to IS NULL OR o.createdAt < :to)")
+    Page<OrderRow> findRowsBySupplier(@Param("supplier") User supplier, @Param("status") Order.Status status,
+                                      @Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Pageable pageable);
+
+    // Item lines of a page of orders in one join, in insertion order so the first line comes first
+    @Query("SELECT oi.order.id AS orderId, p.id AS productId, p.name AS productName, " +
+           "p.supplierProductId AS supplierProductId, p.unit AS unit, oi.quantity AS quantity " +
+           "FROM OrderItem oi JOIN oi.product p WHERE oi.order.id IN :orderIds ORDER BY oi.id ASC")
+    List<OrderItemRow> findItemRowsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    interface OrderRow {
+        Long getId();
+        Integer getBuyerSequence();
+        Integer getSupplierSequence();
+        Order.Status getStatus();
+        Order.PaymentStatus getPaymentStatus();
+        BigDecimal getTotalAmount();
+        LocalDateTime getCreatedAt();
+        String getShippingAddress();
+        String getBuyerName();
+        String getSupplierName();
+    }
+
+    interface OrderItemRow {
+        Long getOrderId();
+        Long getProductId();
+        String getProductName();
+        Integer getSupplierProductId();
+        String getUnit();
+        Integer getQuantity();
+    }
+
+    interface ProductQuantity {
+        Long getProductId();
+        Long getQuantity();
+    }
+}
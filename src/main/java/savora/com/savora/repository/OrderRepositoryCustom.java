@@ -0,0 +1,10 @@
+package savora.com.savora.repository;
+
+import savora.com.savora.model.Order;
+import java.util.List;
+
+public interface OrderRepositoryCustom {
+
+    // Inserts new orders and their items in two JDBC batches and sets the generated IDs on them
+    void insertAll(List<Order> orders);
+}
@@ -0,0 +1,113 @@
+package savora.com.savora.repository;
+
+import savora.com.savora.model.Order;
+import savora.com.savora.model.OrderItem;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Batched inserts for checkout, one round trip for all orders and one for all their items
+public class OrderRepositoryImpl implements OrderRepositoryCustom {
+
+    private static final String INSERT_ORDER = "INSERT INTO orders (buyer_id, supplier_id, buyer_sequence, supplier_sequence, " +
+            "subtotal_amount, total_amount, status, payment_method, payment_status, shipping_address, shipping_city, " +
+            "shipping_province, shipping_postal_code, shipping_phone, shipping_method, shipping_cost, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_ITEM = "INSERT INTO order_items (order_id, product_id, quantity, price) VALUES (?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        KeyHolder orderKeys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_ORDER, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Order order = orders.get(i);
+                        ps.setLong(1, order.getBuyer().getId());
+                        ps.setLong(2, order.getSupplier().getId());
+                        ps.setObject(3, order.getBuyerSequence());
+                        ps.setObject(4, order.getSupplierSequence());
+                        ps.setBigDecimal(5, order.getSubtotalAmount());
+                        ps.setBigDecimal(6, order.getTotalAmount());
+                        ps.setString(7, order.getStatus().name());
+                        ps.setString(8, name(order.getPaymentMethod()));
+                        ps.setString(9, name(order.getPaymentStatus()));
+                        ps.setString(10, order.getShippingAddress());
+                        ps.setString(11, order.getShippingCity());
+                        ps.setString(12, order.getShippingProvince());
+                        ps.setString(13, order.getShippingPostalCode());
+                        ps.setString(14, order.getShippingPhone());
+                        ps.setString(15, name(order.getShippingMethod()));
+                        ps.setBigDecimal(16, order.getShippingCost());
+                        ps.setTimestamp(17, Timestamp.valueOf(order.getCreatedAt()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return orders.size();
+                    }
+                }, orderKeys);
+        assignKeys(orderKeys, orders.size(), (i, id) -> orders.get(i).setId(id));
+
+        List<OrderItem> items = new ArrayList<>();
+        for (Order order : orders) {
+            for (OrderItem item : order.getOrderItems()) {
+                item.setOrder(order);
+                items.add(item);
+            }
+        }
+        KeyHolder itemKeys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_ITEM, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        OrderItem item = items.get(i);
+                        ps.setLong(1, item.getOrder().getId());
+                        ps.setLong(2, item.getProduct().getId());
+                        ps.setInt(3, item.getQuantity());
+                        ps.setBigDecimal(4, item.getPrice());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return items.size();
+                    }
+                }, itemKeys);
+        assignKeys(itemKeys, items.size(), (i, id) -> items.get(i).setId(id));
+    }
+
+    private static void assignKeys(KeyHolder keys, int expected, KeyConsumer consumer) {
+        List<Map<String, Object>> keyList = keys.getKeyList();
+        if (keyList.size() != expected) {
+            throw new IllegalStateException("Expected " + expected + " generated keys but got " + keyList.size());
+        }
+        for (int i = 0; i < expected; i++) {
+            consumer.accept(i, ((Number) keyList.get(i).values().iterator().next()).longValue());
+        }
+    }
+
+    private static String name(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+
+    private interface KeyConsumer {
+        void accept(int index, Long id);
+    }
+}
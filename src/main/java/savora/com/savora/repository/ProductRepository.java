@@ -2,15 +2,19 @@ package savora.com.savora.repository;
 
 import savora.com.savora.model.Product;
 import savora.com.savora.model.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import java.util.Collection;
 import java.util.List;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
     List<Product> findBySupplier(User supplier);
-    List<Product> findBySupplierOrderByIdAsc(User supplier);
     List<Product> findByCategoryId(Long categoryId);
 
     @Query("SELECT p FROM Product p WHERE p.name LIKE %:keyword% OR p.description LIKE %:keyword%")
@@ -41,6 +45,8 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.stockQuantity < 10 ORDER BY p.stockQuantity ASC")
     List<Product> findLowStockProducts();
 
+    List<Product> findTop6ByStockQuantityLessThanOrderByStockQuantityAsc(Integer threshold);
+
     // Product name suggestions for autocomplete
     @Query("SELECT DISTINCT p.name FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :query, '%')) ORDER BY p.name ASC")
     List<String> findProductNameSuggestionsLimited(String query, org.springframework.data.domain.Pageable pageable);
@@ -49,6 +55,66 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT MAX(p.supplierProductId) FROM Product p WHERE p.supplier = :supplier")
     Integer findMaxSupplierProductIdBySupplier(User supplier);
 
-    // Find products without supplier product ID
-    List<Product> findBySupplierProductIdIsNull();
+    // Products without supplier product ID, in ID order for batch migration
+    List<Product> findBySupplierProductIdIsNullAndIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids")
+    List<Product> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    // Atomically folds one review into the rating summary (delta +1 adds, -1 removes).
+    // The average is assigned first so it is computed from the pre-update columns.
+    @Modifying
+    @Query("UPDATE Product p SET " +
+           "p.averageRating = CASE WHEN COALESCE(p.reviewCount, 0) + :delta > 0 " +
+           "THEN (COALESCE(p.ratingSum, 0) + :ratingDelta) * 1.0 / (COALESCE(p.reviewCount, 0) + :delta) ELSE 0.0 END, " +
+           "p.reviewCount = COALESCE(p.reviewCount, 0) + :delta, " +
+           "p.ratingSum = COALESCE(p.ratingSum, 0) + :ratingDelta, " +
+           "p.oneStarCount = COALESCE(p.oneStarCount, 0) + CASE WHEN :rating = 1 THEN :delta ELSE 0 END, " +
+           "p.twoStarCount = COALESCE(p.twoStarCount, 0) + CASE WHEN :rating = 2 THEN :delta ELSE 0 END, " +
+           "p.threeStarCount = COALESCE(p.threeStarCount, 0) + CASE WHEN :rating = 3 THEN :delta ELSE 0 END, " +
+           "p.fourStarCount = COALESCE(p.fourStarCount, 0) + CASE WHEN :rating = 4 THEN :delta ELSE 0 END, " +
+           "p.fiveStarCount = COALESCE(p.fiveStarCount, 0) + CASE WHEN :rating = 5 THEN :delta ELSE 0 END " +
+           "WHERE p.id = :productId")
+    int applyRating(@Param("productId") Long productId, @Param("rating") int rating,
+                    @Param("delta") int delta, @Param("ratingDelta") int ratingDelta);
+
+    // Takes stock only if enough is left; 0 rows updated means there was not enough
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity " +
+           "WHERE p.id = :productId AND p.stockQuantity >= :quantity")
+    int decrementStock(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = COALESCE(p.stockQuantity, 0) + :quantity WHERE p.id = :productId")
+    int incrementStock(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+    @Query("SELECT p.stockQuantity FROM Product p WHERE p.id = :productId")
+    Integer findStockQuantityById(@Param("productId") Long productId);
+
+    // Review totals and star histogram over all of a supplier's products
+    @Query("SELECT COALESCE(SUM(p.reviewCount), 0) AS reviewCount, COALESCE(SUM(p.ratingSum), 0) AS ratingSum, " +
+           "COALESCE(SUM(p.oneStarCount), 0) AS oneStarCount, COALESCE(SUM(p.twoStarCount), 0) AS twoStarCount, " +
+           "COALESCE(SUM(p.threeStarCount), 0) AS threeStarCount, COALESCE(SUM(p.fourStarCount), 0) AS fourStarCount, " +
+           "COALESCE(SUM(p.fiveStarCount), 0) AS fiveStarCount " +
+           "FROM Product p WHERE p.supplier = :supplier")
+    RatingHistogram sumRatingHistogramBySupplier(@Param("supplier") User supplier);
+
+    // Product IDs in ascending order, for batch jobs
+    @Query("SELECT p.id FROM Product p WHERE p.id > :afterId ORDER BY p.id ASC")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    interface RatingHistogram {
+        Long getReviewCount();
+        Long getRatingSum();
+        Long getOneStarCount();
+        Long getTwoStarCount();
+        Long getThreeStarCount();
+        Long getFourStarCount();
+        Long getFiveStarCount();
+
+        default double getAverageRating() {
+            return getReviewCount() > 0 ? (double) getRatingSum() / getReviewCount() : 0.0;
+        }
+    }
 }
\ No newline at end of file
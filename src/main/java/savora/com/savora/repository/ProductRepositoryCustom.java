@@ -0,0 +1,23 @@
+package savora.com.savora.repository;
+
+import savora.com.savora.model.Product;
+import java.util.List;
+import java.util.Map;
+
+public interface ProductRepositoryCustom {
+
+    // Up to limit products ordered by (sortKey, id), starting after (afterValue, afterId) when given
+    List<Product> findSlice(Long categoryId, Double minPrice, Double maxPrice, Long supplierId,
+                            ProductSortKey sortKey, boolean ascending,
+                            Comparable<?> afterValue, Long afterId, int limit);
+
+    long countMatching(Long categoryId, Double minPrice, Double maxPrice, Long supplierId);
+
+    // Row count from table statistics, without scanning products
+    long estimateTotalCount();
+
+    // Conditional stock decrements for many products in one JDBC batch; returns the products that were short
+    List<Long> decrementStock(Map<Long, Integer> quantities);
+
+    void incrementSalesCounts(Map<Long, Integer> quantities);
+}
@@ -0,0 +1,133 @@
+package savora.com.savora.repository;
+
+import savora.com.savora.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Keyset (seek) queries for product listings: no OFFSET and no COUNT per page,
+// plus batched stock and sales counter updates for checkout
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Product> findSlice(Long categoryId, Double minPrice, Double maxPrice, Long supplierId,
+                                   ProductSortKey sortKey, boolean ascending,
+                                   Comparable<?> afterValue, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Product> query = cb.createQuery(Product.class);
+        Root<Product> product = query.from(Product.class);
+
+        List<Predicate> predicates = filters(cb, product, categoryId, minPrice, maxPrice, supplierId);
+        if (afterId != null) {
+            predicates.add(seekPredicate(cb, product, sortKey, ascending, afterValue, afterId));
+        }
+
+        Path<Object> sortPath = product.get(sortKey.getAttribute());
+        Path<Object> idPath = product.get("id");
+        query.select(product)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(ascending ? cb.asc(sortPath) : cb.desc(sortPath),
+                         ascending ? cb.asc(idPath) : cb.desc(idPath));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public long countMatching(Long categoryId, Double minPrice, Double maxPrice, Long supplierId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Product> product = query.from(Product.class);
+        query.select(cb.count(product))
+                .where(filters(cb, product, categoryId, minPrice, maxPrice, supplierId).toArray(new Predicate[0]));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @Override
+    public long estimateTotalCount() {
+        try {
+            Object rows = entityManager.createNativeQuery(
+                    "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'products'")
+                    .getSingleResult();
+            return rows != null ? ((Number) rows).longValue() : 0L;
+        } catch (Exception e) {
+            // Statistics unavailable (e.g. another database); fall back to an exact count
+            return entityManager.createQuery("SELECT COUNT(p) FROM Product p", Long.class).getSingleResult();
+        }
+    }
+
+    @Override
+    public List<Long> decrementStock(Map<Long, Integer> quantities) {
+        List<Long> productIds = new ArrayList<>(quantities.keySet());
+        List<Object[]> args = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            int quantity = quantities.get(productId);
+            args.add(new Object[] {quantity, productId, quantity});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(
+                "UPDATE products SET stock_quantity = stock_quantity - ? WHERE id = ? AND stock_quantity >= ?", args);
+        List<Long> shortProducts = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                shortProducts.add(productIds.get(i));
+            }
+        }
+        return shortProducts;
+    }
+
+    @Override
+    public void incrementSalesCounts(Map<Long, Integer> quantities) {
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> args.add(new Object[] {quantity, productId}));
+        jdbcTemplate.batchUpdate("UPDATE products SET sales_count = COALESCE(sales_count, 0) + ? WHERE id = ?", args);
+    }
+
+    private List<Predicate> filters(CriteriaBuilder cb, Root<Product> product, Long categoryId,
+                                    Double minPrice, Double maxPrice, Long supplierId) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (categoryId != null) {
+            predicates.add(cb.equal(product.get("category").get("id"), categoryId));
+        }
+        if (supplierId != null) {
+            predicates.add(cb.equal(product.get("supplier").get("id"), supplierId));
+        }
+        Path<BigDecimal> price = product.get("price");
+        if (minPrice != null) {
+            predicates.add(cb.ge(price, minPrice));
+        }
+        if (maxPrice != null) {
+            predicates.add(cb.le(price, maxPrice));
+        }
+        return predicates;
+    }
+
+    // (sort > v) OR (sort = v AND id > lastId), mirrored for descending order
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate seekPredicate(CriteriaBuilder cb, Root<Product> product, ProductSortKey sortKey,
+                                    boolean ascending, Comparable afterValue, Long afterId) {
+        Expression<Long> idPath = product.get("id");
+        Predicate idBeyond = ascending ? cb.gt(idPath, afterId) : cb.lt(idPath, afterId);
+        if (sortKey == ProductSortKey.ID) {
+            return idBeyond;
+        }
+        Expression<Comparable> sortPath = product.get(sortKey.getAttribute());
+        Predicate valueBeyond = ascending ? cb.greaterThan(sortPath, afterValue) : cb.lessThan(sortPath, afterValue);
+        return cb.or(valueBeyond, cb.and(cb.equal(sortPath, afterValue), idBeyond));
+    }
+}
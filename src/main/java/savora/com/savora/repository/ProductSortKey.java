@@ -0,0 +1,61 @@
+package savora.com.savora.repository;
+
+import savora.com.savora.model.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Product columns that listings can be ordered by; every ordering is (column, id)
+public enum ProductSortKey {
+    ID("id"),
+    PRICE("price"),
+    NAME("name"),
+    CREATED_AT("createdAt");
+
+    private final String attribute;
+
+    ProductSortKey(String attribute) {
+        this.attribute = attribute;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    // Unknown sort parameters fall back to ID, the listing default
+    public static ProductSortKey fromParameter(String parameter) {
+        for (ProductSortKey key : values()) {
+            if (key.attribute.equals(parameter)) {
+                return key;
+            }
+        }
+        return ID;
+    }
+
+    // The product's value for this key, in the string form stored in cursors
+    public String format(Product product) {
+        switch (this) {
+            case PRICE:
+                return product.getPrice().toPlainString();
+            case NAME:
+                return product.getName();
+            case CREATED_AT:
+                return product.getCreatedAt().toString();
+            default:
+                return product.getId().toString();
+        }
+    }
+
+    public Comparable<?> parse(String value) {
+        switch (this) {
+            case PRICE:
+                return new BigDecimal(value);
+            case NAME:
+                return value;
+            case CREATED_AT:
+                return LocalDateTime.parse(value);
+            default:
+                return Long.valueOf(value);
+        }
+    }
+}
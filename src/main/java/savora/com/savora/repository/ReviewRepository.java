@@ -6,6 +6,7 @@ import savora.com.savora.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,4 +23,17 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
 
     @Query("SELECT r FROM Review r WHERE r.product = :product ORDER BY r.createdAt DESC")
     List<Review> findTop5ByProductOrderByCreatedAtDesc(@Param("product") Product product);
+
+    List<Review> findByProductSupplierOrderByCreatedAtDesc(User supplier);
+
+    // Review count per (product, star rating), used to rebuild the product rating summaries
+    @Query("SELECT r.product.id AS productId, r.rating AS rating, COUNT(r) AS reviewCount " +
+           "FROM Review r WHERE r.product.id IN :productIds AND r.rating IS NOT NULL GROUP BY r.product.id, r.rating")
+    List<RatingCount> countRatingsByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    interface RatingCount {
+        Long getProductId();
+        Integer getRating();
+        Long getReviewCount();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package savora.com.savora.repository;
+
+import savora.com.savora.model.SequenceCounter;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Optional;
+
+public interface SequenceCounterRepository extends JpaRepository<SequenceCounter, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM SequenceCounter c WHERE c.sequenceName = :sequenceName AND c.ownerId = :ownerId")
+    Optional<SequenceCounter> findForUpdate(@Param("sequenceName") String sequenceName, @Param("ownerId") Long ownerId);
+
+    // Creates the counter unless another transaction already has; waits for that one to commit
+    @Modifying
+    @Query(value = "INSERT INTO sequence_counters (sequence_name, owner_id, next_value) " +
+                   "VALUES (:sequenceName, :ownerId, :nextValue) ON DUPLICATE KEY UPDATE next_value = next_value",
+           nativeQuery = true)
+    int createIfAbsent(@Param("sequenceName") String sequenceName, @Param("ownerId") Long ownerId,
+                       @Param("nextValue") Long nextValue);
+
+    // Hands an unused block back, only if nobody has reserved past it meanwhile
+    @Modifying
+    @Query("UPDATE SequenceCounter c SET c.nextValue = :unusedFrom " +
+           "WHERE c.sequenceName = :sequenceName AND c.ownerId = :ownerId AND c.nextValue = :reservedUntil")
+    int releaseBlock(@Param("sequenceName") String sequenceName, @Param("ownerId") Long ownerId,
+                     @Param("unusedFrom") Long unusedFrom, @Param("reservedUntil") Long reservedUntil);
+}
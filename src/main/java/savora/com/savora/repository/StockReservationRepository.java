@@ -0,0 +1,53 @@
+package savora.com.savora.repository;
+
+import savora.com.savora.model.StockReservation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long>, StockReservationRepositoryCustom {
+
+    List<StockReservation> findByOrderIdAndStatus(Long orderId, StockReservation.Status status);
+
+    List<StockReservation> findByOrderIdAndStatusIn(Long orderId, Collection<StockReservation.Status> statuses);
+
+    // Reservations of checkouts whose orders were never inserted (or were rolled back)
+    List<StockReservation> findByReferenceInAndStatusAndOrderIdIsNull(Collection<String> references, StockReservation.Status status);
+
+    // Orders holding reservations past their expiry, oldest order first
+    @Query("SELECT DISTINCT r.orderId FROM StockReservation r " +
+           "WHERE r.orderId IS NOT NULL AND r.status = :status AND r.expiresAt < :now ORDER BY r.orderId ASC")
+    List<Long> findOrderIdsExpiredBefore(@Param("status") StockReservation.Status status,
+                                         @Param("now") LocalDateTime now, Pageable pageable);
+
+    // Reservations of checkouts that never inserted their orders (the process died in between)
+    @Query("SELECT DISTINCT r.reference FROM StockReservation r " +
+           "WHERE r.orderId IS NULL AND r.status = :status AND r.expiresAt < :now")
+    List<String> findUnboundReferencesExpiredBefore(@Param("status") StockReservation.Status status,
+                                                    @Param("now") LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.orderId = :orderId WHERE r.reference = :reference AND r.orderId IS NULL")
+    int bindOrder(@Param("reference") String reference, @Param("orderId") Long orderId);
+
+    // Moves one reservation out of a state; 0 rows means someone else resolved it first
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = :to, r.resolvedAt = :now WHERE r.id = :id AND r.status = :from")
+    int transition(@Param("id") Long id, @Param("from") StockReservation.Status from,
+                   @Param("to") StockReservation.Status to, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = :to, r.resolvedAt = :now WHERE r.orderId = :orderId AND r.status = :from")
+    int transitionByOrderId(@Param("orderId") Long orderId, @Param("from") StockReservation.Status from,
+                            @Param("to") StockReservation.Status to, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = :to, r.resolvedAt = :now WHERE r.orderId IN :orderIds AND r.status = :from")
+    int transitionByOrderIds(@Param("orderIds") Collection<Long> orderIds, @Param("from") StockReservation.Status from,
+                             @Param("to") StockReservation.Status to, @Param("now") LocalDateTime now);
+}
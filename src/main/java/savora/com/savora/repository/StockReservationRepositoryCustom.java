@@ -0,0 +1,14 @@
+package savora.com.savora.repository;
+
+import savora.com.savora.model.StockReservation;
+import java.util.List;
+
+public interface StockReservationRepositoryCustom {
+
+    // Inserts many reservations in one JDBC batch
+    void insertAll(List<StockReservation> reservations);
+
+    // Lets reservations be written before their order exists (tables created with order_id NOT NULL).
+    // DDL: call outside a transaction; does nothing once the column is already nullable
+    void allowUnboundReservations();
+}
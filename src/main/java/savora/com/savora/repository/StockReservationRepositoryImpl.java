@@ -0,0 +1,49 @@
+package savora.com.savora.repository;
+
+import savora.com.savora.model.StockReservation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+public class StockReservationRepositoryImpl implements StockReservationRepositoryCustom {
+
+    private static final String INSERT_RESERVATION = "INSERT INTO stock_reservations " +
+            "(order_id, reference, product_id, quantity, status, created_at, expires_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String ORDER_ID_NULLABLE = "SELECT IS_NULLABLE FROM information_schema.COLUMNS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'stock_reservations' AND COLUMN_NAME = 'order_id'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<StockReservation> reservations) {
+        if (reservations.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(reservations.size());
+        for (StockReservation reservation : reservations) {
+            args.add(new Object[] {
+                    reservation.getOrderId(),
+                    reservation.getReference(),
+                    reservation.getProductId(),
+                    reservation.getQuantity(),
+                    reservation.getStatus().name(),
+                    Timestamp.valueOf(reservation.getCreatedAt()),
+                    Timestamp.valueOf(reservation.getExpiresAt())
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_RESERVATION, args);
+    }
+
+    @Override
+    public void allowUnboundReservations() {
+        List<String> nullable = jdbcTemplate.queryForList(ORDER_ID_NULLABLE, String.class);
+        if (nullable.contains("NO")) {
+            jdbcTemplate.execute("ALTER TABLE stock_reservations MODIFY order_id BIGINT NULL");
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package savora.com.savora.repository;
+
+import savora.com.savora.model.SupplierDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SupplierDailyStatsRepository extends JpaRepository<SupplierDailyStats, Long> {
+    List<SupplierDailyStats> findBySupplierIdAndStatDateGreaterThanEqualOrderByStatDateAsc(Long supplierId, LocalDate from);
+
+    boolean existsBySupplierId(Long supplierId);
+
+    @Modifying
+    @Query("DELETE FROM SupplierDailyStats s WHERE s.supplierId = :supplierId")
+    int deleteBySupplierId(@Param("supplierId") Long supplierId);
+
+    // Lifetime totals for a supplier in a single aggregate row
+    @Query("SELECT COALESCE(SUM(s.orderCount), 0) AS orderCount, COALESCE(SUM(s.revenue), 0) AS revenue, " +
+           "COALESCE(SUM(s.newCustomerCount), 0) AS customerCount, " +
+           "COALESCE(SUM(s.pendingCount), 0) AS pendingCount, COALESCE(SUM(s.confirmedCount), 0) AS confirmedCount, " +
+           "COALESCE(SUM(s.processingCount), 0) AS processingCount, COALESCE(SUM(s.shippedCount), 0) AS shippedCount, " +
+           "COALESCE(SUM(s.deliveredCount), 0) AS deliveredCount, COALESCE(SUM(s.cancelledCount), 0) AS cancelledCount " +
+           "FROM SupplierDailyStats s WHERE s.supplierId = :supplierId")
+    Totals sumBySupplierId(@Param("supplierId") Long supplierId);
+
+    // Atomic increment of one day's row, inserting it if it does not exist yet
+    @Modifying
+    @Query(value = "INSERT INTO supplier_daily_stats (supplier_id, stat_date, revenue, order_count, new_customer_count, " +
+           "pending_count, confirmed_count, processing_count, shipped_count, delivered_count, cancelled_count) " +
+           "VALUES (:supplierId, :statDate, :revenue, :orderCount, :newCustomerCount, " +
+           ":pending, :confirmed, :processing, :shipped, :delivered, :cancelled) " +
+           "ON DUPLICATE KEY UPDATE revenue = revenue + VALUES(revenue), order_count = order_count + VALUES(order_count), " +
+           "new_customer_count = new_customer_count + VALUES(new_customer_count), " +
+           "pending_count = pending_count + VALUES(pending_count), confirmed_count = confirmed_count + VALUES(confirmed_count), " +
+           "processing_count = processing_count + VALUES(processing_count), shipped_count = shipped_count + VALUES(shipped_count), " +
+           "delivered_count = delivered_count + VALUES(delivered_count), cancelled_count = cancelled_count + VALUES(cancelled_count)",
+           nativeQuery = true)
+    int upsertIncrement(@Param("supplierId") Long supplierId,
+                        @Param("statDate") LocalDate statDate,
+                        @Param("revenue") BigDecimal revenue,
+                        @Param("orderCount") int orderCount,
+                        @Param("newCustomerCount") int newCustomerCount,
+                        @Param("pending") int pending,
+                        @Param("confirmed") int confirmed,
+                        @Param("processing") int processing,
+                        @Param("shipped") int shipped,
+                        @Param("delivered") int delivered,
+                        @Param("cancelled") int cancelled);
+
+    interface Totals {
+        Long getOrderCount();
+        BigDecimal getRevenue();
+        Long getCustomerCount();
+        Long getPendingCount();
+        Long getConfirmedCount();
+        Long getProcessingCount();
+        Long getShippedCount();
+        Long getDeliveredCount();
+        Long getCancelledCount();
+    }
+}
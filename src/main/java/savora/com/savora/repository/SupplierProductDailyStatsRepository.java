@@ -0,0 +1,45 @@
+package savora.com.savora.repository;
+
+import savora.com.savora.model.SupplierProductDailyStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SupplierProductDailyStatsRepository extends JpaRepository<SupplierProductDailyStats, Long> {
+
+    @Modifying
+    @Query("DELETE FROM SupplierProductDailyStats s WHERE s.supplierId = :supplierId")
+    int deleteBySupplierId(@Param("supplierId") Long supplierId);
+
+    // Best selling products of a supplier by number of orders
+    @Query("SELECT s.productId AS productId, SUM(s.orderCount) AS orderCount, SUM(s.unitsSold) AS unitsSold, SUM(s.revenue) AS revenue " +
+           "FROM SupplierProductDailyStats s WHERE s.supplierId = :supplierId " +
+           "GROUP BY s.productId HAVING SUM(s.orderCount) > 0 ORDER BY SUM(s.orderCount) DESC")
+    List<ProductTotals> findTopProducts(@Param("supplierId") Long supplierId, Pageable pageable);
+
+    // Atomic increment of one product-day row, inserting it if it does not exist yet
+    @Modifying
+    @Query(value = "INSERT INTO supplier_product_daily_stats (supplier_id, product_id, stat_date, units_sold, revenue, order_count) " +
+           "VALUES (:supplierId, :productId, :statDate, :unitsSold, :revenue, :orderCount) " +
+           "ON DUPLICATE KEY UPDATE units_sold = units_sold + VALUES(units_sold), revenue = revenue + VALUES(revenue), " +
+           "order_count = order_count + VALUES(order_count)",
+           nativeQuery = true)
+    int upsertIncrement(@Param("supplierId") Long supplierId,
+                        @Param("productId") Long productId,
+                        @Param("statDate") LocalDate statDate,
+                        @Param("unitsSold") int unitsSold,
+                        @Param("revenue") BigDecimal revenue,
+                        @Param("orderCount") int orderCount);
+
+    interface ProductTotals {
+        Long getProductId();
+        Long getOrderCount();
+        Long getUnitsSold();
+        BigDecimal getRevenue();
+    }
+}
@@ -0,0 +1,88 @@
+package savora.com.savora.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Evicts the per-user analytics caches and logs their hit/miss/eviction
+ * counters periodically; they cover every user, so they are not served over
+ * HTTP. Evictions inside a transaction are deferred until after commit so
+ * a concurrent reader cannot re-cache the pre-commit state.
+ */
+@Service
+public class AnalyticsCacheService {
+
+    public static final String SUPPLIER_ANALYTICS = "supplierAnalytics";
+    public static final String BUYER_ANALYTICS = "buyerAnalytics";
+    public static final String SUPPLIER_DASHBOARD = "supplierDashboard";
+    public static final String BUYER_DASHBOARD = "buyerDashboard";
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    public void evictSupplier(Long supplierId) {
+        evict(supplierId, SUPPLIER_ANALYTICS, SUPPLIER_DASHBOARD);
+    }
+
+    public void evictBuyer(Long buyerId) {
+        evict(buyerId, BUYER_ANALYTICS, BUYER_DASHBOARD);
+    }
+
+    public Map<String, Map<String, Object>> getStatistics() {
+        Map<String, Map<String, Object>> statistics = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache instanceof CaffeineCache caffeineCache) {
+                CacheStats stats = caffeineCache.getNativeCache().stats();
+                Map<String, Object> values = new LinkedHashMap<>();
+                values.put("size", caffeineCache.getNativeCache().estimatedSize());
+                values.put("hits", stats.hitCount());
+                values.put("misses", stats.missCount());
+                values.put("hitRate", stats.hitRate());
+                values.put("evictions", stats.evictionCount());
+                statistics.put(name, values);
+            }
+        }
+        return statistics;
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.cache.stats-log-interval-ms:900000}",
+               initialDelayString = "${analytics.cache.stats-log-interval-ms:900000}")
+    public void logStatistics() {
+        getStatistics().forEach((name, values) -> System.out.println("Cache " + name + ": " + values));
+    }
+
+    private void evict(Long userId, String... cacheNames) {
+        if (userId == null) {
+            return;
+        }
+        Runnable eviction = () -> {
+            for (String name : cacheNames) {
+                Cache cache = cacheManager.getCache(name);
+                if (cache != null) {
+                    cache.evict(userId);
+                }
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+}
@@ -3,16 +3,22 @@ package savora.com.savora.service;
 import savora.com.savora.model.Order;
 import savora.com.savora.model.Product;
 import savora.com.savora.model.Review;
+import savora.com.savora.model.SupplierDailyStats;
 import savora.com.savora.model.User;
 import savora.com.savora.repository.OrderRepository;
 import savora.com.savora.repository.ProductRepository;
 import savora.com.savora.repository.ReviewRepository;
+import savora.com.savora.repository.SupplierDailyStatsRepository;
+import savora.com.savora.repository.SupplierProductDailyStatsRepository;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -29,45 +35,43 @@ public class AnalyticsService {
     @Autowired
     private ReviewRepository reviewRepository;
 
-    @Cacheable("supplierAnalytics")
+    @Autowired
+    private SupplierDailyStatsRepository dailyStatsRepository;
+
+    @Autowired
+    private SupplierProductDailyStatsRepository productDailyStatsRepository;
+
+    @Autowired
+    private SupplierStatsService supplierStatsService;
+
+    // Keyed by supplier ID; entries are evicted through AnalyticsCacheService on writes
+    @Cacheable(value = AnalyticsCacheService.SUPPLIER_ANALYTICS, key = "#supplier.id", unless = "#result.containsKey('error')")
     public Map<String, Object> getSupplierAnalytics(User supplier) {
         try {
             Map<String, Object> analytics = new HashMap<>();
 
-            // Get all orders for this supplier
-            List<Order> orders = orderRepository.findBySupplier(supplier);
+            // Lifetime totals come from a single aggregate over the daily rollup
+            SupplierDailyStatsRepository.Totals totals = dailyStatsRepository.sumBySupplierId(supplier.getId());
 
         // Basic metrics
-        analytics.put("totalOrders", orders.size());
-        analytics.put("totalRevenue", orders.stream()
-                .map(Order::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add));
+        analytics.put("totalOrders", totals.getOrderCount().intValue());
+        analytics.put("totalRevenue", totals.getRevenue());
 
         // Total customers (distinct buyers)
-        long totalCustomers = orders.stream()
-                .map(Order::getBuyer)
-                .distinct()
-                .count();
-        analytics.put("totalCustomers", totalCustomers);
-
-        // Average rating for supplier's products
-        List<Product> supplierProducts = productRepository.findBySupplier(supplier);
-        double totalRating = 0.0;
-        int totalReviews = 0;
-        for (Product product : supplierProducts) {
-            Double avgRating = reviewRepository.findAverageRatingByProduct(product);
-            if (avgRating != null) {
-                Long reviewCount = reviewRepository.countReviewsByProduct(product);
-                totalRating += avgRating * reviewCount;
-                totalReviews += reviewCount;
-            }
-        }
-        double averageRating = totalReviews > 0 ? totalRating / totalReviews : 0.0;
+        analytics.put("totalCustomers", totals.getCustomerCount());
+
+        // Average rating for supplier's products, from the per-product rating summaries
+        double averageRating = productRepository.sumRatingHistogramBySupplier(supplier).getAverageRating();
         analytics.put("averageRating", BigDecimal.valueOf(averageRating));
 
         // Order status distribution
-        Map<Order.Status, Long> statusDistribution = orders.stream()
-                .collect(Collectors.groupingBy(Order::getStatus, Collectors.counting()));
+        Map<Order.Status, Long> statusDistribution = new EnumMap<>(Order.Status.class);
+        putIfPositive(statusDistribution, Order.Status.PENDING, totals.getPendingCount());
+        putIfPositive(statusDistribution, Order.Status.CONFIRMED, totals.getConfirmedCount());
+        putIfPositive(statusDistribution, Order.Status.PROCESSING, totals.getProcessingCount());
+        putIfPositive(statusDistribution, Order.Status.SHIPPED, totals.getShippedCount());
+        putIfPositive(statusDistribution, Order.Status.DELIVERED, totals.getDeliveredCount());
+        putIfPositive(statusDistribution, Order.Status.CANCELLED, totals.getCancelledCount());
         analytics.put("statusDistribution", statusDistribution);
 
         // Status distribution for chart
@@ -92,32 +96,31 @@ public class AnalyticsService {
         analytics.put("statusLabels", statusLabels);
         analytics.put("statusData", statusData);
 
-        // Monthly revenue for the last 12 months
+        // Monthly revenue and orders for the last 12 months, from at most ~365 daily rows
+        LocalDate now = LocalDate.now();
+        YearMonth currentMonth = YearMonth.from(now);
+        YearMonth firstMonth = currentMonth.minusMonths(11);
+        Map<YearMonth, BigDecimal> revenueByMonth = new HashMap<>();
+        Map<YearMonth, Long> ordersByMonth = new HashMap<>();
+        for (SupplierDailyStats day : dailyStatsRepository
+                .findBySupplierIdAndStatDateGreaterThanEqualOrderByStatDateAsc(supplier.getId(), firstMonth.atDay(1))) {
+            YearMonth month = YearMonth.from(day.getStatDate());
+            revenueByMonth.merge(month, day.getRevenue(), BigDecimal::add);
+            ordersByMonth.merge(month, day.getOrderCount().longValue(), Long::sum);
+        }
+
         Map<String, BigDecimal> monthlyRevenue = new LinkedHashMap<>();
         List<String> chartLabels = new ArrayList<>();
         List<Double> chartData = new ArrayList<>();
-        LocalDate now = LocalDate.now();
         for (int i = 11; i >= 0; i--) {
-            LocalDate month = now.minusMonths(i);
+            YearMonth month = currentMonth.minusMonths(i);
             String monthKey = month.format(DateTimeFormatter.ofPattern("MMM yyyy"));
-            BigDecimal revenue = orders.stream()
-                    .filter(order -> order.getCreatedAt().toLocalDate().getMonth() == month.getMonth() &&
-                                    order.getCreatedAt().toLocalDate().getYear() == month.getYear())
-                    .map(Order::getTotalAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            BigDecimal revenue = revenueByMonth.getOrDefault(month, BigDecimal.ZERO);
             monthlyRevenue.put(monthKey, revenue);
             chartLabels.add(monthKey);
             chartData.add(revenue.doubleValue());
         }
         analytics.put("monthlyRevenue", monthlyRevenue);
-        // Ensure chart has data, add default if empty
-        if (chartLabels.isEmpty()) {
-            for (int i = 11; i >= 0; i--) {
-                LocalDate month = now.minusMonths(i);
-                chartLabels.add(month.format(DateTimeFormatter.ofPattern("MMM yyyy")));
-                chartData.add(0.0);
-            }
-        }
         analytics.put("chartLabels", chartLabels);
         analytics.put("chartData", chartData);
 
@@ -136,14 +139,8 @@ public class AnalyticsService {
         }
 
         // For orders, similar logic
-        long currentMonthOrders = orders.stream()
-                .filter(order -> order.getCreatedAt().toLocalDate().getMonth() == LocalDate.now().getMonth() &&
-                                order.getCreatedAt().toLocalDate().getYear() == LocalDate.now().getYear())
-                .count();
-        long lastMonthOrders = orders.stream()
-                .filter(order -> order.getCreatedAt().toLocalDate().getMonth() == LocalDate.now().minusMonths(1).getMonth() &&
-                                order.getCreatedAt().toLocalDate().getYear() == LocalDate.now().minusMonths(1).getYear())
-                .count();
+        long currentMonthOrders = ordersByMonth.getOrDefault(currentMonth, 0L);
+        long lastMonthOrders = ordersByMonth.getOrDefault(currentMonth.minusMonths(1), 0L);
         if (lastMonthOrders > 0) {
             double orderGrowth = ((double)(currentMonthOrders - lastMonthOrders) / lastMonthOrders) * 100;
             analytics.put("orderGrowthPercent", Math.round(orderGrowth));
@@ -155,52 +152,38 @@ public class AnalyticsService {
         analytics.put("customerGrowthPercent", 0);
         analytics.put("ratingGrowthPercent", 0);
 
-        // Top products
-        List<Product> products = productRepository.findBySupplier(supplier);
+        // Top products by number of orders, aggregated in the database
+        List<SupplierProductDailyStatsRepository.ProductTotals> productTotals =
+                productDailyStatsRepository.findTopProducts(supplier.getId(), PageRequest.of(0, 5));
+        Map<Long, Product> productsById = productRepository.findAllById(productTotals.stream()
+                        .map(SupplierProductDailyStatsRepository.ProductTotals::getProductId)
+                        .collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(Product::getId, p -> p));
         List<Map<String, Object>> topProducts = new ArrayList<>();
-        for (Product product : products) {
-            // Count orders containing this product
-            long salesCount = orders.stream()
-                    .filter(order -> order.getOrderItems().stream()
-                            .anyMatch(item -> item.getProduct().getId().equals(product.getId())))
-                    .count();
-
-            if (salesCount > 0) {
-                // Calculate revenue from orders containing this product
-                BigDecimal revenue = orders.stream()
-                        .filter(order -> order.getOrderItems().stream()
-                                .anyMatch(item -> item.getProduct().getId().equals(product.getId())))
-                        .map(Order::getTotalAmount)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                // Average rating for this product
-                Double avgRating = reviewRepository.findAverageRatingByProduct(product);
-                double avgRatingValue = avgRating != null ? avgRating : 0.0;
-
-                Map<String, Object> productData = new HashMap<>();
-                productData.put("name", product.getName());
-                productData.put("imageUrl", product.getImageUrl());
-                productData.put("price", product.getPrice());
-                productData.put("salesCount", salesCount);
-                productData.put("revenue", revenue);
-                productData.put("averageRating", BigDecimal.valueOf(avgRatingValue));
-                productData.put("salesTrend", 0); // Placeholder, could calculate from previous period
-
-                topProducts.add(productData);
+        for (SupplierProductDailyStatsRepository.ProductTotals totalsRow : productTotals) {
+            Product product = productsById.get(totalsRow.getProductId());
+            if (product == null) {
+                continue;
             }
-        }
-        // Sort by salesCount descending and limit to 5
-        topProducts.sort((p1, p2) -> Long.compare((Long) p2.get("salesCount"), (Long) p1.get("salesCount")));
-        if (topProducts.size() > 5) {
-            topProducts = topProducts.subList(0, 5);
+
+            // Average rating for this product
+            double avgRatingValue = product.getAverageRating() != null ? product.getAverageRating() : 0.0;
+
+            Map<String, Object> productData = new HashMap<>();
+            productData.put("name", product.getName());
+            productData.put("imageUrl", product.getImageUrl());
+            productData.put("price", product.getPrice());
+            productData.put("salesCount", totalsRow.getOrderCount());
+            productData.put("revenue", totalsRow.getRevenue());
+            productData.put("averageRating", BigDecimal.valueOf(avgRatingValue));
+            productData.put("salesTrend", 0); // Placeholder, could calculate from previous period
+
+            topProducts.add(productData);
         }
         analytics.put("topProducts", topProducts);
 
         // Recent orders (last 10)
-        analytics.put("recentOrders", orders.stream()
-                .sorted((o1, o2) -> o2.getCreatedAt().compareTo(o1.getCreatedAt()))
-                .limit(10)
-                .collect(Collectors.toList()));
+        analytics.put("recentOrders", orderRepository.findTop10BySupplierOrderByCreatedAtDesc(supplier));
 
         return analytics;
     } catch (Exception e) {
@@ -208,6 +191,7 @@ public class AnalyticsService {
         System.err.println("Error generating supplier analytics: " + e.getMessage());
         e.printStackTrace();
         Map<String, Object> emptyAnalytics = new HashMap<>();
+        emptyAnalytics.put("error", e.getMessage());
         emptyAnalytics.put("totalOrders", 0);
         emptyAnalytics.put("totalRevenue", BigDecimal.ZERO);
         emptyAnalytics.put("totalCustomers", 0);
@@ -224,6 +208,13 @@ public class AnalyticsService {
     }
 }
 
+    private void putIfPositive(Map<Order.Status, Long> distribution, Order.Status status, Long count) {
+        if (count != null && count > 0) {
+            distribution.put(status, count);
+        }
+    }
+
+    @Cacheable(value = AnalyticsCacheService.BUYER_ANALYTICS, key = "#buyer.id")
     public Map<String, Object> getBuyerAnalytics(User buyer) {
         Map<String, Object> analytics = new HashMap<>();
 
@@ -276,12 +267,107 @@ public class AnalyticsService {
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue,
                         (e1, e2) -> e1, LinkedHashMap::new)));
 
-        // Recent orders (last 10)
-        analytics.put("recentOrders", orders.stream()
+        // Recent orders (last 10); items are loaded now because the result outlives the session
+        List<Order> recentOrders = orders.stream()
                 .sorted((o1, o2) -> o2.getCreatedAt().compareTo(o1.getCreatedAt()))
                 .limit(10)
-                .collect(Collectors.toList()));
+                .collect(Collectors.toList());
+        recentOrders.forEach(order -> Hibernate.initialize(order.getOrderItems()));
+        analytics.put("recentOrders", recentOrders);
 
         return analytics;
     }
+
+    @Cacheable(value = AnalyticsCacheService.SUPPLIER_DASHBOARD, key = "#supplier.id")
+    public Map<String, Object> getSupplierDashboardStats(User supplier) {
+        Map<String, Object> stats = new HashMap<>();
+
+        // Get products statistics
+        List<Product> products = productRepository.findBySupplier(supplier);
+        long totalProducts = products.size();
+
+        // Get orders statistics
+        List<Order> orders = orderRepository.findBySupplier(supplier);
+        long totalOrders = orders.size();
+
+        BigDecimal totalRevenue = orders.stream()
+                .filter(o -> o.getStatus() == Order.Status.DELIVERED)
+                .map(Order::getTotalAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        long pendingOrdersCount = orders.stream()
+                .filter(o -> o.getStatus() == Order.Status.PENDING || o.getStatus() == Order.Status.PROCESSING)
+                .count();
+
+        // Calculate average rating
+        double averageRating = products.stream()
+                .filter(p -> p.getAverageRating() != null)
+                .mapToDouble(Product::getAverageRating)
+                .average()
+                .orElse(0.0);
+
+        // Get top products (by sales count)
+        List<Product> topProducts = products.stream()
+                .filter(p -> p.getSalesCount() != null && p.getSalesCount() > 0)
+                .sorted((p1, p2) -> Integer.compare(p2.getSalesCount(), p1.getSalesCount()))
+                .limit(5)
+                .toList();
+
+        // Get low stock products
+        List<Product> lowStockProducts = products.stream()
+                .filter(p -> p.getStock() != null && p.getStock() <= 10)
+                .limit(5)
+                .toList();
+
+        // Get recent orders (last 5)
+        List<Order> recentOrders = orders.stream()
+                .sorted((o1, o2) -> o2.getCreatedAt().compareTo(o1.getCreatedAt()))
+                .limit(5)
+                .toList();
+
+        stats.put("totalProducts", totalProducts);
+        stats.put("totalOrders", totalOrders);
+        stats.put("totalRevenue", totalRevenue);
+        stats.put("averageRating", String.format("%.1f", averageRating));
+        stats.put("pendingOrdersCount", (int) pendingOrdersCount);
+        stats.put("topProducts", topProducts);
+        stats.put("lowStockProducts", lowStockProducts);
+        stats.put("recentOrders", recentOrders);
+        return stats;
+    }
+
+    @Cacheable(value = AnalyticsCacheService.BUYER_DASHBOARD, key = "#buyer.id")
+    public Map<String, Object> getBuyerDashboardStats(User buyer) {
+        Map<String, Object> stats = new HashMap<>();
+
+        // Get orders statistics
+        List<Order> orders = orderRepository.findByBuyer(buyer);
+        long totalOrders = orders.size();
+        long completedOrders = orders.stream().filter(o -> o.getStatus() == Order.Status.DELIVERED).count();
+        long pendingOrders = orders.stream().filter(o -> o.getStatus() == Order.Status.PENDING || o.getStatus() == Order.Status.PROCESSING).count();
+
+        BigDecimal totalSpent = orders.stream()
+                .filter(o -> o.getStatus() == Order.Status.DELIVERED)
+                .map(Order::getTotalAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        // Get recent orders (last 5)
+        List<Order> recentOrders = orders.stream()
+                .sorted((o1, o2) -> o2.getCreatedAt().compareTo(o1.getCreatedAt()))
+                .limit(5)
+                .toList();
+
+        // Get recent reviews (last 5)
+        List<Review> recentReviews = reviewRepository.findByBuyerOrderByCreatedAtDesc(buyer).stream()
+                .limit(5)
+                .toList();
+
+        stats.put("totalOrders", totalOrders);
+        stats.put("completedOrders", completedOrders);
+        stats.put("pendingOrders", pendingOrders);
+        stats.put("totalSpent", totalSpent);
+        stats.put("recentOrders", recentOrders);
+        stats.put("recentReviews", recentReviews);
+        return stats;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.Order;
+import savora.com.savora.model.OrderItem;
+import savora.com.savora.model.User;
+import java.util.List;
+
+// Everything needed to place a checkout in one write: the lines, payment and shipping details
+public class CheckoutCommand {
+    private final User buyer;
+    private final List<OrderItem> items;
+    private final Order.PaymentMethod paymentMethod;
+    private final Order.ShippingMethod shippingMethod;
+    private String shippingAddress;
+    private String shippingCity;
+    private String shippingProvince;
+    private String shippingPostalCode;
+    private String shippingPhone;
+    private boolean clearsCart;
+
+    public CheckoutCommand(User buyer, List<OrderItem> items, Order.PaymentMethod paymentMethod,
+                           Order.ShippingMethod shippingMethod) {
+        this.buyer = buyer;
+        this.items = items;
+        this.paymentMethod = paymentMethod;
+        this.shippingMethod = shippingMethod;
+    }
+
+    public CheckoutCommand shipTo(String address, String city, String province, String postalCode, String phone) {
+        this.shippingAddress = address;
+        this.shippingCity = city;
+        this.shippingProvince = province;
+        this.shippingPostalCode = postalCode;
+        this.shippingPhone = phone;
+        return this;
+    }
+
+    // Empties the buyer's cart in the checkout's transaction, so the orders and the cart commit together
+    public CheckoutCommand fromCart() {
+        this.clearsCart = true;
+        return this;
+    }
+
+    public User getBuyer() { return buyer; }
+    public List<OrderItem> getItems() { return items; }
+    public Order.PaymentMethod getPaymentMethod() { return paymentMethod; }
+    public Order.ShippingMethod getShippingMethod() { return shippingMethod; }
+    public String getShippingAddress() { return shippingAddress; }
+    public String getShippingCity() { return shippingCity; }
+    public String getShippingProvince() { return shippingProvince; }
+    public String getShippingPostalCode() { return shippingPostalCode; }
+    public String getShippingPhone() { return shippingPhone; }
+    public boolean isClearsCart() { return clearsCart; }
+}
@@ -0,0 +1,99 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.DataMigration;
+import savora.com.savora.repository.DataMigrationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Runs every StartupMigration that has not completed yet, once, at application boot.
+ * Progress is stored in data_migrations after each batch, so an interrupted run resumes
+ * where it stopped and a completed migration is skipped on every later start.
+ */
+@Service
+public class DataMigrationService implements ApplicationRunner {
+
+    @Autowired
+    private DataMigrationRepository dataMigrationRepository;
+
+    @Autowired
+    private List<StartupMigration> migrations;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${migrations.run-on-startup:true}")
+    private boolean runOnStartup;
+
+    @Value("${migrations.batch-size:200}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (runOnStartup) {
+            runPending();
+        }
+    }
+
+    public void runPending() {
+        for (StartupMigration migration : migrations) {
+            try {
+                run(migration);
+            } catch (Exception e) {
+                // Leave it RUNNING; the next start resumes from the last committed batch
+                System.err.println("Data migration " + migration.getName() + " failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void run(StartupMigration migration) {
+        DataMigration record = dataMigrationRepository.findById(migration.getName()).orElse(null);
+        if (record != null && record.getStatus() == DataMigration.Status.COMPLETED) {
+            return;
+        }
+        if (record == null) {
+            try {
+                DataMigration created = new DataMigration();
+                created.setName(migration.getName());
+                dataMigrationRepository.save(created);
+            } catch (DataIntegrityViolationException e) {
+                // Another instance registered it first; batches below are serialized by the row lock
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        migration.migrateSchema();
+        boolean completed = false;
+        while (!completed) {
+            completed = Boolean.TRUE.equals(transactionTemplate.execute(status -> runBatch(migration)));
+        }
+        System.out.println("Data migration " + migration.getName() + " completed in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    // One batch and its progress update commit together
+    private boolean runBatch(StartupMigration migration) {
+        DataMigration record = dataMigrationRepository.findByNameForUpdate(migration.getName()).orElseThrow();
+        if (record.getStatus() == DataMigration.Status.COMPLETED) {
+            return true;
+        }
+
+        Long lastProcessedId = migration.migrateBatch(record.getLastProcessedId(), batchSize);
+        if (lastProcessedId == null) {
+            record.setStatus(DataMigration.Status.COMPLETED);
+            record.setCompletedAt(LocalDateTime.now());
+            return true;
+        }
+        record.setLastProcessedId(lastProcessedId);
+        record.setBatchCount(record.getBatchCount() + 1);
+        return false;
+    }
+}
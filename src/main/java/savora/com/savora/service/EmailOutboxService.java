@@ -0,0 +1,272 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.EmailOutbox;
+import savora.com.savora.repository.EmailOutboxRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transactional email outbox. enqueue() inserts the message in the caller's transaction, so
+ * it goes out only if that transaction commits and the caller never waits on the mail server.
+ *
+ * A scheduled drain claims due messages in a short transaction (SKIP LOCKED, so instances
+ * drain disjoint batches), splits the batch across a small worker pool and sends each chunk
+ * with one JavaMailSender.send(MimeMessage...) call, which delivers the whole chunk over a
+ * single SMTP connection. Failed messages are retried with exponential backoff and moved to
+ * DEAD after max-attempts. A message whose worker died mid-send is retried once its claim
+ * lapses, counting as a failed attempt, so delivery is at least once.
+ */
+@Service
+public class EmailOutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${mail.outbox.workers:2}")
+    private int workers;
+
+    @Value("${mail.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${mail.outbox.backoff-initial-seconds:30}")
+    private long backoffInitialSeconds;
+
+    @Value("${mail.outbox.backoff-max-seconds:3600}")
+    private long backoffMaxSeconds;
+
+    @Value("${mail.outbox.claim-seconds:300}")
+    private long claimSeconds;
+
+    private ExecutorService pool;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(Math.max(1, workers), runnable -> {
+            Thread thread = new Thread(runnable, "email-outbox-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdown();
+    }
+
+    public void enqueue(String recipient, String subject, String body) {
+        enqueue(recipient, subject, body, null);
+    }
+
+    // HTML body with a plain-text alternative, sent as multipart/alternative
+    public void enqueue(String recipient, String subject, String htmlBody, String textBody) {
+        if (recipient == null || recipient.isBlank()) {
+            System.err.println("Cannot queue email '" + subject + "': recipient is null/empty");
+            return;
+        }
+        EmailOutbox email = new EmailOutbox();
+        email.setRecipient(recipient);
+        email.setSubject(subject);
+        email.setBody(htmlBody);
+        email.setTextBody(textBody);
+        emailOutboxRepository.save(email);
+    }
+
+    // Runs on the shared scheduler pool (spring.task.scheduling.pool.size), so a long drain does
+    // not hold up the other scheduled jobs
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval-ms:2000}")
+    public void drain() {
+        List<EmailOutbox> batch;
+        do {
+            batch = claimBatch();
+            if (!batch.isEmpty()) {
+                recordResults(batch, sendAll(batch));
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    // A SENDING row whose claim lapsed never reported back: that send counts as a failed attempt,
+    // so a message whose chunk keeps dying backs off and is dead-lettered like any other failure
+    List<EmailOutbox> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutbox> due = emailOutboxRepository.findDueForUpdate(
+                    EnumSet.of(EmailOutbox.Status.PENDING, EmailOutbox.Status.SENDING), now, PageRequest.of(0, batchSize));
+            List<EmailOutbox> claimed = new ArrayList<>();
+            for (EmailOutbox email : due) {
+                if (email.getStatus() == EmailOutbox.Status.SENDING) {
+                    recordFailure(email, "Send did not complete before its claim lapsed", now);
+                    emailOutboxRepository.recordFailure(email.getId(), email.getStatus(), email.getAttempts(),
+                            email.getNextAttemptAt(), email.getLastError());
+                } else {
+                    claimed.add(email);
+                }
+            }
+            if (!claimed.isEmpty()) {
+                List<Long> ids = claimed.stream().map(EmailOutbox::getId).toList();
+                emailOutboxRepository.claim(ids, EmailOutbox.Status.SENDING, now.plusSeconds(claimSeconds));
+            }
+            return claimed;
+        });
+    }
+
+    // Sends the batch in one chunk per worker and collects the outcome of every message
+    SendResults sendAll(List<EmailOutbox> batch) {
+        int workerCount = Math.max(1, workers);
+        int chunkSize = (batch.size() + workerCount - 1) / workerCount;
+        List<List<EmailOutbox>> chunks = new ArrayList<>();
+        List<Future<Map<Long, String>>> futures = new ArrayList<>();
+        for (int from = 0; from < batch.size(); from += chunkSize) {
+            List<EmailOutbox> chunk = batch.subList(from, Math.min(from + chunkSize, batch.size()));
+            chunks.add(chunk);
+            futures.add(pool.submit(() -> sendChunk(chunk)));
+        }
+
+        SendResults results = new SendResults();
+        for (int i = 0; i < chunks.size(); i++) {
+            try {
+                results.failures.putAll(futures.get(i).get());
+            } catch (Exception e) {
+                // Outcome unknown: some of the chunk may have gone out
+                System.err.println("Error sending email chunk: " + e.getMessage());
+                chunks.get(i).forEach(email -> results.unknown.add(email.getId()));
+            }
+        }
+        return results;
+    }
+
+    // One send call for the whole chunk, so JavaMailSenderImpl reuses a single SMTP connection
+    Map<Long, String> sendChunk(List<EmailOutbox> chunk) {
+        Map<Long, String> failures = new HashMap<>();
+        List<MimeMessage> messages = new ArrayList<>();
+        Map<MimeMessage, Long> idsByMessage = new IdentityHashMap<>();
+        for (EmailOutbox email : chunk) {
+            try {
+                MimeMessage message = mailSender.createMimeMessage();
+                MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+                helper.setTo(email.getRecipient());
+                helper.setSubject(email.getSubject());
+                if (email.isHtml() && email.getTextBody() != null) {
+                    helper.setText(email.getTextBody(), email.getBody());
+                } else {
+                    helper.setText(email.getBody(), email.isHtml());
+                }
+                messages.add(message);
+                idsByMessage.put(message, email.getId());
+            } catch (MessagingException e) {
+                failures.put(email.getId(), "Invalid message: " + e.getMessage());
+            }
+        }
+        if (messages.isEmpty()) {
+            return failures;
+        }
+
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                idsByMessage.values().forEach(id -> failures.put(id, e.getMessage()));
+            }
+            e.getFailedMessages().forEach((message, cause) -> {
+                Long id = idsByMessage.get(message);
+                if (id != null) {
+                    failures.put(id, cause.getMessage());
+                }
+            });
+        } catch (MailException e) {
+            // Connection or authentication failure: nothing in the chunk was sent
+            idsByMessage.values().forEach(id -> failures.put(id, e.getMessage()));
+        }
+        return failures;
+    }
+
+    // Messages with an unknown outcome stay SENDING, so they are retried once their claim lapses
+    void recordResults(List<EmailOutbox> batch, SendResults results) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> sent = new ArrayList<>();
+        List<EmailOutbox> failed = new ArrayList<>();
+        for (EmailOutbox email : batch) {
+            if (results.unknown.contains(email.getId())) {
+                continue;
+            }
+            if (results.failures.containsKey(email.getId())) {
+                recordFailure(email, results.failures.get(email.getId()), now);
+                failed.add(email);
+            } else {
+                sent.add(email.getId());
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sent.isEmpty()) {
+                emailOutboxRepository.markSent(sent, EmailOutbox.Status.SENT, now);
+            }
+            for (EmailOutbox email : failed) {
+                emailOutboxRepository.recordFailure(email.getId(), email.getStatus(), email.getAttempts(),
+                        email.getNextAttemptAt(), email.getLastError());
+            }
+        });
+    }
+
+    // Schedules the retry, or dead-letters the message once it is out of attempts
+    void recordFailure(EmailOutbox email, String error, LocalDateTime now) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        email.setLastError(error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        if (attempts >= maxAttempts) {
+            email.setStatus(EmailOutbox.Status.DEAD);
+            System.err.println("Email " + email.getId() + " to " + email.getRecipient() + " dead after "
+                + attempts + " attempts: " + error);
+        } else {
+            email.setStatus(EmailOutbox.Status.PENDING);
+            email.setNextAttemptAt(now.plusSeconds(backoffSeconds(attempts)));
+        }
+    }
+
+    // backoff-initial-seconds doubled per failed attempt, capped at backoff-max-seconds
+    long backoffSeconds(int attempts) {
+        return Math.min(backoffMaxSeconds, backoffInitialSeconds << Math.min(attempts - 1, 20));
+    }
+
+    // The error of every message that failed, and the messages of chunks whose send died midway
+    static final class SendResults {
+        final Map<Long, String> failures = new HashMap<>();
+        final Set<Long> unknown = new HashSet<>();
+    }
+}
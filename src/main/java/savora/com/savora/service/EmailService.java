@@ -1,34 +1,58 @@
 package savora.com.savora.service;
 
+import savora.com.savora.model.NotificationDigestItem;
 import savora.com.savora.model.Order;
 import savora.com.savora.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
-
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Renders the application's emails from templates/email and queues them in the outbox; EmailOutboxService sends them
 @Service
-public class EmailService {
+public class EmailService implements OrderEventSubscriber {
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
 
     @Autowired
-    private JavaMailSender mailSender;
+    private EmailTemplateRenderer emailTemplateRenderer;
+
+    @Value("${app.base-url:http://localhost:8080}")
+    private String baseUrl;
+
+    // Buyer emails for order status and payment changes; each send failure is logged and skipped
+    @Override
+    public void onOrderEvents(List<OrderStatusChangedEvent> events) {
+        for (OrderStatusChangedEvent event : events) {
+            String orderId = event.getOrderId().toString();
+            Double amount = event.getTotalAmount().doubleValue();
+            if (!event.isStatusChanged()) {
+                if (event.isPaymentReceived()) {
+                    sendPaymentApprovedNotification(event.getBuyer(), orderId, amount);
+                }
+            } else if (event.getToStatus() == Order.Status.CONFIRMED && event.isPaymentReceived()) {
+                sendPaymentConfirmedNotification(event.getBuyer(), orderId, amount,
+                    event.getPaymentMethod() != null ? event.getPaymentMethod().name() : "-");
+            } else if (event.getToStatus() == Order.Status.CONFIRMED) {
+                sendOrderConfirmedNotification(event.getBuyer(), orderId, "2-3 hari kerja");
+            } else if (event.getToStatus() == Order.Status.SHIPPED) {
+                sendOrderShippedNotification(event.getBuyer(), orderId,
+                    event.getTrackingNumber() != null ? event.getTrackingNumber() : "TBA", "3-5 hari kerja");
+            }
+        }
+    }
 
     public void sendOrderConfirmation(Order order) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(order.getBuyer().getEmail());
-            helper.setSubject("Konfirmasi Pesanan - SAVORA #" + order.getId());
-
-            String htmlContent = buildOrderConfirmationEmail(order);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-        } catch (MessagingException e) {
+            enqueue(order.getBuyer().getEmail(), "Konfirmasi Pesanan - SAVORA #" + order.getId(),
+                "order-confirmation", orderConfirmationVariables(order));
+        } catch (Exception e) {
             // Log error but don't throw exception to avoid breaking order flow
             System.err.println("Failed to send order confirmation email: " + e.getMessage());
         }
@@ -36,51 +60,25 @@ public class EmailService {
 
     public void sendOrderStatusUpdate(Order order) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(order.getBuyer().getEmail());
-            helper.setSubject("Update Status Pesanan - SAVORA #" + order.getId());
-
-            String htmlContent = buildOrderStatusEmail(order);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-        } catch (MessagingException e) {
+            enqueue(order.getBuyer().getEmail(), "Update Status Pesanan - SAVORA #" + order.getId(),
+                "order-status", orderStatusVariables(order));
+        } catch (Exception e) {
             System.err.println("Failed to send order status email: " + e.getMessage());
         }
     }
 
     public void sendWelcomeEmail(User user) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(user.getEmail());
-            helper.setSubject("Selamat Datang di SAVORA!");
-
-            String htmlContent = buildWelcomeEmail(user);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-        } catch (MessagingException e) {
+            enqueue(user.getEmail(), "Selamat Datang di SAVORA!", "welcome", welcomeVariables(user));
+        } catch (Exception e) {
             System.err.println("Failed to send welcome email: " + e.getMessage());
         }
     }
 
     public void sendPasswordResetEmail(User user, String resetToken) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(user.getEmail());
-            helper.setSubject("Reset Password - SAVORA");
-
-            String htmlContent = buildPasswordResetEmail(user, resetToken);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-        } catch (MessagingException e) {
+            enqueue(user.getEmail(), "Reset Password - SAVORA", "password-reset", passwordResetVariables(user, resetToken));
+        } catch (Exception e) {
             System.err.println("Failed to send password reset email: " + e.getMessage());
         }
     }
@@ -92,38 +90,37 @@ public class EmailService {
                 System.err.println("Cannot send email: supplier or email is null/empty");
                 return;
             }
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(supplier.getEmail());
-            helper.setSubject("Pesanan Baru Masuk - SAVORA #" + orderId);
-
-            String htmlContent = buildNewOrderEmail(supplier, buyer, orderId, productName, quantity);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
+            enqueue(supplier.getEmail(), "Pesanan Baru Masuk - SAVORA #" + orderId,
+                "new-order", newOrderVariables(supplier, buyer, orderId, productName, quantity));
         } catch (Exception e) {
             System.err.println("Failed to send new order notification email: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    // New orders held back while a supplier's first order of the window was notified; orders lists the first few of count
+    public void sendNewOrderDigest(User supplier, int count, List<NotificationDigestItem> orders) {
+        try {
+            if (supplier == null || supplier.getEmail() == null || supplier.getEmail().isEmpty()) {
+                System.err.println("Cannot send email: supplier or email is null/empty");
+                return;
+            }
+            enqueue(supplier.getEmail(), count + " Pesanan Baru Masuk - SAVORA",
+                "new-order-digest", newOrderDigestVariables(supplier, count, orders));
+        } catch (Exception e) {
+            System.err.println("Failed to send new order digest email: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
     public void sendPaymentConfirmedNotification(User buyer, String orderId, Double amount, String paymentMethod) {
         try {
             if (buyer == null || buyer.getEmail() == null || buyer.getEmail().isEmpty()) {
                 System.err.println("Cannot send email: buyer or email is null/empty");
                 return;
             }
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(buyer.getEmail());
-            helper.setSubject("Pembayaran Dikonfirmasi - SAVORA #" + orderId);
-
-            String htmlContent = buildPaymentConfirmedEmail(buyer, orderId, amount, paymentMethod);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
+            enqueue(buyer.getEmail(), "Pembayaran Dikonfirmasi - SAVORA #" + orderId,
+                "payment-confirmed", paymentConfirmedVariables(buyer, orderId, amount, paymentMethod));
         } catch (Exception e) {
             System.err.println("Failed to send payment confirmed email: " + e.getMessage());
             e.printStackTrace();
@@ -136,16 +133,8 @@ public class EmailService {
                 System.err.println("Cannot send email: buyer or email is null/empty");
                 return;
             }
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(buyer.getEmail());
-            helper.setSubject("Pesanan Dikirim - SAVORA #" + orderId);
-
-            String htmlContent = buildOrderShippedEmail(buyer, orderId, trackingNumber, estimatedDelivery);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
+            enqueue(buyer.getEmail(), "Pesanan Dikirim - SAVORA #" + orderId,
+                "order-shipped", orderShippedVariables(buyer, orderId, trackingNumber, estimatedDelivery));
         } catch (Exception e) {
             System.err.println("Failed to send order shipped email: " + e.getMessage());
             e.printStackTrace();
@@ -158,16 +147,8 @@ public class EmailService {
                 System.err.println("Cannot send email: buyer or email is null/empty");
                 return;
             }
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(buyer.getEmail());
-            helper.setSubject("Pesanan Dikonfirmasi - SAVORA #" + orderId);
-
-            String htmlContent = buildOrderConfirmedEmail(buyer, orderId, estimatedShipping);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
+            enqueue(buyer.getEmail(), "Pesanan Dikonfirmasi - SAVORA #" + orderId,
+                "order-confirmed", orderConfirmedVariables(buyer, orderId, estimatedShipping));
         } catch (Exception e) {
             System.err.println("Failed to send order confirmed email: " + e.getMessage());
             e.printStackTrace();
@@ -180,446 +161,121 @@ public class EmailService {
                 System.err.println("Cannot send email: buyer or email is null/empty");
                 return;
             }
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(buyer.getEmail());
-            helper.setSubject("Pembayaran Disetujui - SAVORA #" + orderId);
-
-            String htmlContent = buildPaymentApprovedEmail(buyer, orderId, amount);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
+            enqueue(buyer.getEmail(), "Pembayaran Disetujui - SAVORA #" + orderId,
+                "payment-approved", paymentApprovedVariables(buyer, orderId, amount));
         } catch (Exception e) {
             System.err.println("Failed to send payment approved email: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-    private String buildOrderConfirmationEmail(Order order) {
-        String template = """
-            <!DOCTYPE html>
-            <html>
-            <head>
-                <meta charset="UTF-8">
-                <style>
-                    body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }
-                    .header { background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: white; padding: 20px; text-align: center; }
-                    .content { padding: 20px; }
-                    .order-details { background: #f8f9fa; padding: 15px; border-radius: 5px; margin: 20px 0; }
-                    .footer { background: #343a40; color: white; padding: 20px; text-align: center; }
-                </style>
-            </head>
-            <body>
-                <div class="header">
-                    <h1>SAVORA</h1>
-                    <p>Konfirmasi Pesanan Berhasil</p>
-                </div>
-
-                <div class="content">
-                    <h2>Halo, %s!</h2>
-                    <p>Terima kasih telah berbelanja di SAVORA. Pesanan Anda telah berhasil dibuat dengan detail sebagai berikut:</p>
-
-                    <div class="order-details">
-                        <h3>Detail Pesanan #%s</h3>
-                        <p><strong>Supplier:</strong> %s</p>
-                        <p><strong>Total:</strong> Rp %s</p>
-                        <p><strong>Status:</strong> %s</p>
-                        <p><strong>Tanggal:</strong> %s</p>
-                    </div>
-
-                    <p>Anda akan menerima email update ketika status pesanan berubah.</p>
-                </div>
-
-                <div class="footer">
-                    <p>&copy; 2024 SAVORA. All rights reserved.</p>
-                </div>
-            </body>
-            </html>
-            """;
-
-        return String.format(template,
-            order.getBuyer() != null ? order.getBuyer().getUsername() : "Pelanggan",
-            order.getId() != null ? order.getId().toString() : "N/A",
-            order.getSupplier() != null && order.getSupplier().getCompanyName() != null ?
-                order.getSupplier().getCompanyName() : "Supplier",
-            order.getTotalAmount() != null ? String.format("%,.0f", order.getTotalAmount()) : "0",
-            order.getStatus() != null ? order.getStatus().name() : "PENDING",
-            order.getCreatedAt() != null ? order.getCreatedAt().toString() : "N/A");
+    private Map<String, Object> orderConfirmationVariables(Order order) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", order.getBuyer() != null ? order.getBuyer().getUsername() : "Pelanggan");
+        variables.put("orderId", order.getId() != null ? order.getId().toString() : "N/A");
+        variables.put("supplierName", order.getSupplier() != null && order.getSupplier().getCompanyName() != null ?
+            order.getSupplier().getCompanyName() : "Supplier");
+        variables.put("total", order.getTotalAmount() != null ? String.format("%,.0f", order.getTotalAmount()) : "0");
+        variables.put("status", order.getStatus() != null ? order.getStatus().name() : "PENDING");
+        variables.put("date", order.getCreatedAt() != null ? order.getCreatedAt().toString() : "N/A");
+        return variables;
     }
 
-    private String buildOrderStatusEmail(Order order) {
-        String template = """
-            <!DOCTYPE html>
-            <html>
-            <head>
-                <meta charset="UTF-8">
-                <style>
-                    body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }
-                    .header { background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: white; padding: 20px; text-align: center; }
-                    .content { padding: 20px; }
-                    .status-update { background: #d4edda; border: 1px solid #c3e6cb; padding: 15px; border-radius: 5px; margin: 20px 0; }
-                    .footer { background: #343a40; color: white; padding: 20px; text-align: center; }
-                </style>
-            </head>
-            <body>
-                <div class="header">
-                    <h1>SAVORA</h1>
-                    <p>Update Status Pesanan</p>
-                </div>
-
-                <div class="content">
-                    <h2>Halo, %s!</h2>
-                    <p>Status pesanan Anda telah diperbarui:</p>
-
-                    <div class="status-update">
-                        <h3>Pesanan #%s</h3>
-                        <p><strong>Status Baru:</strong> <span style="font-weight: bold; color: #28a745;">%s</span></p>
-                        <p><strong>Supplier:</strong> %s</p>
-                    </div>
-
-                    <p>Silakan cek dashboard Anda untuk detail lebih lanjut.</p>
-                </div>
-
-                <div class="footer">
-                    <p>&copy; 2024 SAVORA. All rights reserved.</p>
-                </div>
-            </body>
-            </html>
-            """;
-
-        return String.format(template,
-            order.getBuyer() != null ? order.getBuyer().getUsername() : "Pelanggan",
-            order.getId() != null ? order.getId().toString() : "N/A",
-            order.getStatus() != null ? order.getStatus().name() : "PENDING",
-            order.getSupplier() != null && order.getSupplier().getCompanyName() != null ?
-                order.getSupplier().getCompanyName() : "Supplier");
+    private Map<String, Object> orderStatusVariables(Order order) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", order.getBuyer() != null ? order.getBuyer().getUsername() : "Pelanggan");
+        variables.put("orderId", order.getId() != null ? order.getId().toString() : "N/A");
+        variables.put("status", order.getStatus() != null ? order.getStatus().name() : "PENDING");
+        variables.put("supplierName", order.getSupplier() != null && order.getSupplier().getCompanyName() != null ?
+            order.getSupplier().getCompanyName() : "Supplier");
+        return variables;
     }
 
-    private String buildWelcomeEmail(User user) {
-        return """
-            <!DOCTYPE html>
-            <html>
-            <head>
-                <meta charset="UTF-8">
-                <style>
-                    body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }
-                    .header { background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: white; padding: 20px; text-align: center; }
-                    .content { padding: 20px; }
-                    .welcome-message { background: #f8f9fa; padding: 20px; border-radius: 5px; margin: 20px 0; }
-                    .footer { background: #343a40; color: white; padding: 20px; text-align: center; }
-                </style>
-            </head>
-            <body>
-                <div class="header">
-                    <h1>Selamat Datang di SAVORA!</h1>
-                </div>
-
-                <div class="content">
-                    <h2>Halo, " + user.getUsername() + "!</h2>
-
-                    <div class="welcome-message">
-                        <p>Selamat datang di platform SAVORA! Akun Anda telah berhasil dibuat sebagai <strong>" + user.getRole().name() + "</strong>.</p>
-
-                        <p>Anda sekarang dapat:</p>
-                        <ul>
-                            """ + (user.getRole() == User.Role.BUYER ?
-                                "<li>Jelajahi dan beli bahan baku UMKM</li><li>Lihat produk dari berbagai supplier</li><li>Kelola pesanan dan review</li>" :
-                                "<li>Kelola katalog produk Anda</li><li>Terima dan proses pesanan</li><li>Lihat analisis penjualan</li>") + """
-                        </ul>
-                    </div>
-
-                    <p><a href="http://localhost:8080/login" style="background: #28a745; color: white; padding: 10px 20px; text-decoration: none; border-radius: 5px;">Mulai Sekarang</a></p>
-                </div>
-
-                <div class="footer">
-                    <p>&copy; 2024 SAVORA. All rights reserved.</p>
-                </div>
-            </body>
-            </html>
-            """;
+    private Map<String, Object> welcomeVariables(User user) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", user.getUsername());
+        variables.put("role", user.getRole() != null ? user.getRole().name() : "");
+        variables.put("features", user.getRole() == User.Role.BUYER ?
+            List.of("Jelajahi dan beli bahan baku UMKM", "Lihat produk dari berbagai supplier", "Kelola pesanan dan review") :
+            List.of("Kelola katalog produk Anda", "Terima dan proses pesanan", "Lihat analisis penjualan"));
+        variables.put("loginUrl", baseUrl + "/login");
+        return variables;
     }
 
-    private String buildPasswordResetEmail(User user, String resetToken) {
-        return """
-            <!DOCTYPE html>
-            <html>
-            <head>
-                <meta charset="UTF-8">
-                <style>
-                    body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }
-                    .header { background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: white; padding: 20px; text-align: center; }
-                    .content { padding: 20px; }
-                    .reset-section { background: #fff3cd; border: 1px solid #ffeaa7; padding: 15px; border-radius: 5px; margin: 20px 0; }
-                    .reset-button { background: #ffc107; color: #212529; padding: 10px 20px; text-decoration: none; border-radius: 5px; display: inline-block; }
-                    .footer { background: #343a40; color: white; padding: 20px; text-align: center; }
-                </style>
-            </head>
-            <body>
-                <div class="header">
-                    <h1>Reset Password - SAVORA</h1>
-                </div>
-
-                <div class="content">
-                    <h2>Halo, " + user.getUsername() + "!</h2>
-                    <p>Anda menerima email ini karena ada permintaan reset password untuk akun SAVORA Anda.</p>
-
-                    <div class="reset-section">
-                        <p><strong>Klik link di bawah untuk reset password Anda:</strong></p>
-                        <p><a href="http://localhost:8080/reset-password?token=" + resetToken + "" class="reset-button">Reset Password</a></p>
-                        <p><small>Link ini akan kadaluarsa dalam 24 jam.</small></p>
-                    </div>
-
-                    <p>Jika Anda tidak meminta reset password, abaikan email ini.</p>
-                </div>
-
-                <div class="footer">
-                    <p>&copy; 2024 SAVORA. All rights reserved.</p>
-                </div>
-            </body>
-            </html>
-            """;
+    private Map<String, Object> passwordResetVariables(User user, String resetToken) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", user.getUsername());
+        variables.put("resetUrl", baseUrl + "/reset-password?token=" + URLEncoder.encode(resetToken, StandardCharsets.UTF_8));
+        return variables;
     }
 
-    private String buildNewOrderEmail(User supplier, User buyer, String orderId, String productName, Integer quantity) {
-        String template = """
-            <!DOCTYPE html>
-            <html>
-            <head>
-                <meta charset="UTF-8">
-                <style>
-                    body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }
-                    .header { background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: white; padding: 20px; text-align: center; }
-                    .content { padding: 20px; }
-                    .order-details { background: #e7f3ff; border: 1px solid #b8daff; padding: 15px; border-radius: 5px; margin: 20px 0; }
-                    .action-button { background: #28a745; color: white; padding: 10px 20px; text-decoration: none; border-radius: 5px; display: inline-block; }
-                    .footer { background: #343a40; color: white; padding: 20px; text-align: center; }
-                </style>
-            </head>
-            <body>
-                <div class="header">
-                    <h1>SAVORA</h1>
-                    <p>Pesanan Baru Masuk</p>
-                </div>
-
-                <div class="content">
-                    <h2>Halo, %s!</h2>
-                    <p>Anda menerima pesanan baru dari buyer:</p>
-
-                    <div class="order-details">
-                        <h3>Pesanan #%s</h3>
-                        <p><strong>Buyer:</strong> %s</p>
-                        <p><strong>Produk:</strong> %s</p>
-                        <p><strong>Jumlah:</strong> %d</p>
-                    </div>
-
-                    <p><a href="http://localhost:8080/supplier/orders/%s" class="action-button">Proses Pesanan</a></p>
-                </div>
-
-                <div class="footer">
-                    <p>&copy; 2024 SAVORA. All rights reserved.</p>
-                </div>
-            </body>
-            </html>
-            """;
-
-        return String.format(template,
-            supplier.getCompanyName() != null ? supplier.getCompanyName() : supplier.getUsername(),
-            orderId,
-            buyer.getCompanyName() != null ? buyer.getCompanyName() : buyer.getUsername(),
-            productName != null ? productName : "Produk",
-            quantity,
-            orderId);
+    private Map<String, Object> newOrderVariables(User supplier, User buyer, String orderId, String productName, Integer quantity) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", supplier.getCompanyName() != null ? supplier.getCompanyName() : supplier.getUsername());
+        variables.put("orderId", orderId);
+        variables.put("buyerName", buyer.getCompanyName() != null ? buyer.getCompanyName() : buyer.getUsername());
+        variables.put("productName", productName != null ? productName : "Produk");
+        variables.put("quantity", String.valueOf(quantity));
+        variables.put("orderUrl", baseUrl + "/supplier/orders/" + orderId);
+        return variables;
     }
 
-    private String buildPaymentConfirmedEmail(User buyer, String orderId, Double amount, String paymentMethod) {
-        String template = """
-            <!DOCTYPE html>
-            <html>
-            <head>
-                <meta charset="UTF-8">
-                <style>
-                    body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }
-                    .header { background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: white; padding: 20px; text-align: center; }
-                    .content { padding: 20px; }
-                    .payment-details { background: #d4edda; border: 1px solid #c3e6cb; padding: 15px; border-radius: 5px; margin: 20px 0; }
-                    .footer { background: #343a40; color: white; padding: 20px; text-align: center; }
-                </style>
-            </head>
-            <body>
-                <div class="header">
-                    <h1>SAVORA</h1>
-                    <p>Pembayaran Dikonfirmasi</p>
-                </div>
-
-                <div class="content">
-                    <h2>Halo, %s!</h2>
-                    <p>Pembayaran untuk pesanan Anda telah dikonfirmasi:</p>
-
-                    <div class="payment-details">
-                        <h3>Pesanan #%s</h3>
-                        <p><strong>Jumlah:</strong> Rp %s</p>
-                        <p><strong>Metode Pembayaran:</strong> %s</p>
-                        <p><strong>Status:</strong> <span style="color: #28a745; font-weight: bold;">Dikonfirmasi</span></p>
-                    </div>
-
-                    <p>Supplier akan segera memproses pesanan Anda.</p>
-                </div>
-
-                <div class="footer">
-                    <p>&copy; 2024 SAVORA. All rights reserved.</p>
-                </div>
-            </body>
-            </html>
-            """;
-
-        return String.format(template,
-            buyer.getUsername() != null ? buyer.getUsername() : "Pelanggan",
-            orderId,
-            amount != null ? String.format("%,.0f", amount) : "0",
-            paymentMethod != null ? paymentMethod : "Transfer Bank");
+    private Map<String, Object> newOrderDigestVariables(User supplier, int count, List<NotificationDigestItem> orders) {
+        List<Map<String, Object>> listed = new ArrayList<>();
+        for (NotificationDigestItem order : orders) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("orderId", order.getOrderId());
+            item.put("productName", order.getProductName() != null ? order.getProductName() : "Produk");
+            item.put("quantity", String.valueOf(order.getQuantity()));
+            listed.add(item);
+        }
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", supplier.getCompanyName() != null ? supplier.getCompanyName() : supplier.getUsername());
+        variables.put("count", String.valueOf(count));
+        variables.put("orders", listed);
+        variables.put("more", count - orders.size());
+        variables.put("ordersUrl", baseUrl + "/orders/supplier");
+        return variables;
     }
 
-    private String buildOrderShippedEmail(User buyer, String orderId, String trackingNumber, String estimatedDelivery) {
-        String template = """
-            <!DOCTYPE html>
-            <html>
-            <head>
-                <meta charset="UTF-8">
-                <style>
-                    body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }
-                    .header { background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: white; padding: 20px; text-align: center; }
-                    .content { padding: 20px; }
-                    .shipping-details { background: #d1ecf1; border: 1px solid #bee5eb; padding: 15px; border-radius: 5px; margin: 20px 0; }
-                    .action-button { background: #17a2b8; color: white; padding: 10px 20px; text-decoration: none; border-radius: 5px; display: inline-block; }
-                    .footer { background: #343a40; color: white; padding: 20px; text-align: center; }
-                </style>
-            </head>
-            <body>
-                <div class="header">
-                    <h1>SAVORA</h1>
-                    <p>Pesanan Dikirim</p>
-                </div>
-
-                <div class="content">
-                    <h2>Halo, %s!</h2>
-                    <p>Pesanan Anda telah dikirim oleh supplier:</p>
-
-                    <div class="shipping-details">
-                        <h3>Pesanan #%s</h3>
-                        <p><strong>Nomor Tracking:</strong> %s</p>
-                        <p><strong>Estimasi Tiba:</strong> %s</p>
-                    </div>
-
-                    <p><a href="http://localhost:8080/buyer/orders/%s" class="action-button">Lacak Pengiriman</a></p>
-                </div>
-
-                <div class="footer">
-                    <p>&copy; 2024 SAVORA. All rights reserved.</p>
-                </div>
-            </body>
-            </html>
-            """;
-
-        return String.format(template,
-            buyer.getUsername() != null ? buyer.getUsername() : "Pelanggan",
-            orderId,
-            trackingNumber != null ? trackingNumber : "Belum tersedia",
-            estimatedDelivery != null ? estimatedDelivery : "3-5 hari kerja",
-            orderId);
+    private Map<String, Object> paymentConfirmedVariables(User buyer, String orderId, Double amount, String paymentMethod) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", buyer.getUsername() != null ? buyer.getUsername() : "Pelanggan");
+        variables.put("orderId", orderId);
+        variables.put("amount", amount != null ? String.format("%,.0f", amount) : "0");
+        variables.put("paymentMethod", paymentMethod != null ? paymentMethod : "Transfer Bank");
+        return variables;
     }
 
-    private String buildOrderConfirmedEmail(User buyer, String orderId, String estimatedShipping) {
-        String template = """
-            <!DOCTYPE html>
-            <html>
-            <head>
-                <meta charset="UTF-8">
-                <style>
-                    body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }
-                    .header { background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: white; padding: 20px; text-align: center; }
-                    .content { padding: 20px; }
-                    .confirmation-details { background: #fff3cd; border: 1px solid #ffeaa7; padding: 15px; border-radius: 5px; margin: 20px 0; }
-                    .footer { background: #343a40; color: white; padding: 20px; text-align: center; }
-                </style>
-            </head>
-            <body>
-                <div class="header">
-                    <h1>SAVORA</h1>
-                    <p>Pesanan Dikonfirmasi</p>
-                </div>
-
-                <div class="content">
-                    <h2>Halo, %s!</h2>
-                    <p>Pesanan Anda telah dikonfirmasi oleh supplier:</p>
-
-                    <div class="confirmation-details">
-                        <h3>Pesanan #%s</h3>
-                        <p><strong>Status:</strong> <span style="color: #856404; font-weight: bold;">Dikonfirmasi</span></p>
-                        <p><strong>Estimasi Pengiriman:</strong> %s</p>
-                    </div>
-
-                    <p>Supplier sedang menyiapkan pesanan Anda.</p>
-                </div>
-
-                <div class="footer">
-                    <p>&copy; 2024 SAVORA. All rights reserved.</p>
-                </div>
-            </body>
-            </html>
-            """;
-
-        return String.format(template,
-            buyer.getUsername() != null ? buyer.getUsername() : "Pelanggan",
-            orderId,
-            estimatedShipping != null ? estimatedShipping : "2-3 hari kerja");
+    private Map<String, Object> orderShippedVariables(User buyer, String orderId, String trackingNumber, String estimatedDelivery) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", buyer.getUsername() != null ? buyer.getUsername() : "Pelanggan");
+        variables.put("orderId", orderId);
+        variables.put("trackingNumber", trackingNumber != null ? trackingNumber : "Belum tersedia");
+        variables.put("estimatedDelivery", estimatedDelivery != null ? estimatedDelivery : "3-5 hari kerja");
+        variables.put("orderUrl", baseUrl + "/buyer/orders/" + orderId);
+        return variables;
     }
 
-    private String buildPaymentApprovedEmail(User buyer, String orderId, Double amount) {
-        String template = """
-            <!DOCTYPE html>
-            <html>
-            <head>
-                <meta charset="UTF-8">
-                <style>
-                    body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }
-                    .header { background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: white; padding: 20px; text-align: center; }
-                    .content { padding: 20px; }
-                    .approval-details { background: #d4edda; border: 1px solid #c3e6cb; padding: 15px; border-radius: 5px; margin: 20px 0; }
-                    .action-button { background: #28a745; color: white; padding: 10px 20px; text-decoration: none; border-radius: 5px; display: inline-block; }
-                    .footer { background: #343a40; color: white; padding: 20px; text-align: center; }
-                </style>
-            </head>
-            <body>
-                <div class="header">
-                    <h1>SAVORA</h1>
-                    <p>Pembayaran Disetujui</p>
-                </div>
-
-                <div class="content">
-                    <h2>Halo, %s!</h2>
-                    <p>Pembayaran untuk pesanan Anda telah disetujui:</p>
-
-                    <div class="approval-details">
-                        <h3>Pesanan #%s</h3>
-                        <p><strong>Jumlah:</strong> Rp %s</p>
-                        <p><strong>Status:</strong> <span style="color: #28a745; font-weight: bold;">Disetujui</span></p>
-                    </div>
-
-                    <p><a href="http://localhost:8080/buyer/orders/%s" class="action-button">Lanjutkan</a></p>
-                </div>
+    private Map<String, Object> orderConfirmedVariables(User buyer, String orderId, String estimatedShipping) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", buyer.getUsername() != null ? buyer.getUsername() : "Pelanggan");
+        variables.put("orderId", orderId);
+        variables.put("estimatedShipping", estimatedShipping != null ? estimatedShipping : "2-3 hari kerja");
+        return variables;
+    }
 
-                <div class="footer">
-                    <p>&copy; 2024 SAVORA. All rights reserved.</p>
-                </div>
-            </body>
-            </html>
-            """;
+    private Map<String, Object> paymentApprovedVariables(User buyer, String orderId, Double amount) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", buyer.getUsername() != null ? buyer.getUsername() : "Pelanggan");
+        variables.put("orderId", orderId);
+        variables.put("amount", amount != null ? String.format("%,.0f", amount) : "0");
+        variables.put("orderUrl", baseUrl + "/buyer/orders/" + orderId);
+        return variables;
+    }
 
-        return String.format(template,
-            buyer.getUsername() != null ? buyer.getUsername() : "Pelanggan",
-            orderId,
-            amount != null ? String.format("%,.0f", amount) : "0",
-            orderId);
+    private void enqueue(String recipient, String subject, String template, Map<String, Object> variables) {
+        EmailTemplateRenderer.RenderedEmail email = emailTemplateRenderer.render(template, variables);
+        emailOutboxService.enqueue(recipient, subject, email.getHtml(), email.getText());
     }
-}
\ No newline at end of file
+}
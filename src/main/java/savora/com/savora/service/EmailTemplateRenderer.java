@@ -0,0 +1,98 @@
+package savora.com.savora.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Renders the emails in templates/email with Thymeleaf: an HTML part from name.html and a
+ * plain-text part from name.txt. Both engines cache the parsed templates and compile their
+ * SpEL expressions, and warmUp() renders every template once at startup, so sends only
+ * evaluate an already parsed template. Callers pass preformatted strings, the templates
+ * just place them.
+ *
+ * Each thread renders into its own reused buffer instead of building a new string per send.
+ */
+@Service
+public class EmailTemplateRenderer {
+
+    public static final List<String> TEMPLATES = List.of(
+            "order-confirmation", "order-status", "welcome", "password-reset", "new-order",
+            "new-order-digest", "payment-confirmed", "order-shipped", "order-confirmed", "payment-approved");
+
+    private static final Locale LOCALE = Locale.forLanguageTag("id-ID");
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+    // A buffer grown past this by an unusually large email is dropped rather than kept per thread
+    private static final int MAX_RETAINED_BUFFER_SIZE = 256 * 1024;
+
+    private final TemplateEngine htmlEngine = engine(TemplateMode.HTML, ".html");
+    private final TemplateEngine textEngine = engine(TemplateMode.TEXT, ".txt");
+    private final ThreadLocal<StringWriter> buffers = ThreadLocal.withInitial(() -> new StringWriter(INITIAL_BUFFER_SIZE));
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        for (String template : TEMPLATES) {
+            try {
+                render(template, Map.of());
+            } catch (Exception e) {
+                System.err.println("Error warming up email template " + template + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public RenderedEmail render(String template, Map<String, Object> variables) {
+        Context context = new Context(LOCALE, variables);
+        return new RenderedEmail(process(htmlEngine, template, context), process(textEngine, template, context));
+    }
+
+    private String process(TemplateEngine engine, String template, Context context) {
+        StringWriter buffer = buffers.get();
+        buffer.getBuffer().setLength(0);
+        try {
+            engine.process("email/" + template, context, buffer);
+            return buffer.toString();
+        } finally {
+            if (buffer.getBuffer().capacity() > MAX_RETAINED_BUFFER_SIZE) {
+                buffers.remove();
+            }
+        }
+    }
+
+    private static TemplateEngine engine(TemplateMode mode, String suffix) {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(suffix);
+        resolver.setTemplateMode(mode);
+        resolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resolver.setCacheable(true);
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(resolver);
+        engine.setEnableSpringELCompiler(true);
+        return engine;
+    }
+
+    // Both parts of one rendered email
+    public static final class RenderedEmail {
+        private final String html;
+        private final String text;
+
+        RenderedEmail(String html, String text) {
+            this.html = html;
+            this.text = text;
+        }
+
+        public String getHtml() { return html; }
+        public String getText() { return text; }
+    }
+}
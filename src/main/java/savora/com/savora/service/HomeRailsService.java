@@ -0,0 +1,160 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.Category;
+import savora.com.savora.model.Product;
+import savora.com.savora.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Product rails and categories shown on the home page. They are identical for every
+ * visitor, so they are computed in the background and served as an immutable snapshot of
+ * plain values, never the entities themselves, so requests cannot see or change each
+ * other's copies. A product, stock, sales or supplier profile change marks the snapshot
+ * stale and the next tick rebuilds it; otherwise it is rebuilt once it reaches the maximum age.
+ */
+@Service
+public class HomeRailsService {
+
+    private static final int RAIL_SIZE = 8;
+    private static final int LOW_STOCK_THRESHOLD = 10;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Value("${home.rails.max-age-ms:60000}")
+    private long maxAgeMillis;
+
+    private volatile HomeRails current;
+    private volatile boolean stale;
+
+    public HomeRails getRails() {
+        HomeRails rails = current;
+        return rails != null ? rails : refresh();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        stale = true;
+    }
+
+    // Popular products are ranked by sales count
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSalesRecorded(ProductSalesRecordedEvent event) {
+        stale = true;
+    }
+
+    // Reservations move products in and out of the low-stock rail
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(ProductStockChangedEvent event) {
+        stale = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSupplierProfileChanged(SupplierProfileChangedEvent event) {
+        stale = true;
+    }
+
+    @Scheduled(fixedDelayString = "${home.rails.check-interval-ms:5000}")
+    public void refreshIfNeeded() {
+        HomeRails rails = current;
+        if (rails == null || stale || System.currentTimeMillis() - rails.builtAt >= maxAgeMillis) {
+            try {
+                refresh();
+            } catch (Exception e) {
+                // Keep serving the previous snapshot
+                System.err.println("Error refreshing home page rails: " + e.getMessage());
+            }
+        }
+    }
+
+    public synchronized HomeRails refresh() {
+        // Cleared first, so a change arriving during the rebuild triggers another one
+        stale = false;
+        HomeRails rails = new HomeRails(
+                productRepository.findTop6ByStockQuantityLessThanOrderByStockQuantityAsc(LOW_STOCK_THRESHOLD),
+                productService.getPopularProducts(0, RAIL_SIZE),
+                productService.getNewProducts(0, RAIL_SIZE),
+                categoryService.getAllCategories());
+        current = rails;
+        return rails;
+    }
+
+    public static final class HomeRails {
+        private final List<RailProduct> flashSaleProducts;
+        private final List<RailProduct> popularProducts;
+        private final List<RailProduct> newProducts;
+        private final List<RailCategory> categories;
+        private final long builtAt = System.currentTimeMillis();
+
+        HomeRails(List<Product> flashSaleProducts, List<Product> popularProducts,
+                  List<Product> newProducts, List<Category> categories) {
+            this.flashSaleProducts = flashSaleProducts.stream().map(RailProduct::new).toList();
+            this.popularProducts = popularProducts.stream().map(RailProduct::new).toList();
+            this.newProducts = newProducts.stream().map(RailProduct::new).toList();
+            this.categories = categories.stream().map(RailCategory::new).toList();
+        }
+
+        public List<RailProduct> getFlashSaleProducts() { return flashSaleProducts; }
+        public List<RailProduct> getPopularProducts() { return popularProducts; }
+        public List<RailProduct> getNewProducts() { return newProducts; }
+        public List<RailCategory> getCategories() { return categories; }
+    }
+
+    // What a product card on the home page shows, copied when the snapshot is built
+    public static final class RailProduct {
+        private final Long id;
+        private final String name;
+        private final BigDecimal price;
+        private final String imageUrl;
+        private final Integer stock;
+        private final Integer salesCount;
+        private final Double averageRating;
+        private final String supplierCompanyName;
+
+        RailProduct(Product product) {
+            this.id = product.getId();
+            this.name = product.getName();
+            this.price = product.getPrice();
+            this.imageUrl = product.getImageUrl();
+            this.stock = product.getStock();
+            this.salesCount = product.getSalesCount();
+            this.averageRating = product.getAverageRating();
+            this.supplierCompanyName = product.getSupplier() != null ? product.getSupplier().getCompanyName() : null;
+        }
+
+        public Long getId() { return id; }
+        public String getName() { return name; }
+        public BigDecimal getPrice() { return price; }
+        public String getImageUrl() { return imageUrl; }
+        public Integer getStock() { return stock; }
+        public Integer getSalesCount() { return salesCount; }
+        public Double getAverageRating() { return averageRating; }
+        public String getSupplierCompanyName() { return supplierCompanyName; }
+    }
+
+    public static final class RailCategory {
+        private final Long id;
+        private final String name;
+
+        RailCategory(Category category) {
+            this.id = category.getId();
+            this.name = category.getName();
+        }
+
+        public Long getId() { return id; }
+        public String getName() { return name; }
+    }
+}
@@ -0,0 +1,102 @@
+package savora.com.savora.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs a submission at most once per idempotency key. The first request with a key runs
+ * the action; requests arriving while it runs wait for it, and requests within the TTL
+ * afterwards get the same result without running it again. A failed action is forgotten,
+ * so the user can correct the form and resubmit with the same key.
+ *
+ * Requests without a token can be deduplicated by a fingerprint of their content instead,
+ * over a short window that catches double clicks and quick retries.
+ *
+ * Keys live in memory, so deduplication is per instance.
+ */
+@Service
+public class IdempotencyService {
+
+    @Value("${checkout.idempotency.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    @Value("${checkout.idempotency.fingerprint-window-seconds:10}")
+    private long fingerprintWindowSeconds;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // New token for a form; submitted back with it as the idempotency key
+    public String newToken() {
+        return UUID.randomUUID().toString();
+    }
+
+    public <T> T execute(String key, Supplier<T> action) {
+        return execute(key, Duration.ofMinutes(ttlMinutes), action);
+    }
+
+    // For submissions without a token: identical content within the window counts as a repeat
+    public <T> T executeByFingerprint(String fingerprint, Supplier<T> action) {
+        return execute("fingerprint:" + fingerprint, Duration.ofSeconds(fingerprintWindowSeconds), action);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Duration ttl, Supplier<T> action) {
+        long now = System.currentTimeMillis();
+        Entry entry = new Entry(now + ttl.toMillis());
+        Entry existing = entries.putIfAbsent(key, entry);
+        while (existing != null && existing.isExpired(now)) {
+            entries.remove(key, existing);
+            existing = entries.putIfAbsent(key, entry);
+        }
+        if (existing != null) {
+            try {
+                return (T) existing.result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        try {
+            T result = action.get();
+            entry.result.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // Errors too, or waiting duplicates would block forever and the key would never be swept
+            entries.remove(key, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${checkout.idempotency.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    private static final class Entry {
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        final long expiresAt;
+
+        Entry(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        // A submission still running never expires, so it cannot be started twice
+        boolean isExpired(long now) {
+            return now >= expiresAt && result.isDone();
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.Product;
+import savora.com.savora.model.User;
+import savora.com.savora.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over product name, description, category and supplier company name,
+ * scored with BM25 using per-field weights. Built from the database at startup and kept
+ * current through ProductChangedEvent and SupplierProfileChangedEvent; changes arriving while
+ * the startup build runs are held and applied once it finishes, so the build cannot overwrite them.
+ */
+@Service
+public class InMemoryProductSearchEngine implements ProductSearchEngine {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float SUPPLIER_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    private static final int MAX_PREFIX_EXPANSIONS = 20;
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IndexedProduct> documents = new HashMap<>();
+    private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private double totalLength;
+    private volatile boolean ready;
+
+    // Changes held while the startup build runs, guarded by pendingChanges
+    private final Map<Long, ProductChangedEvent> pendingChanges = new LinkedHashMap<>();
+    private final Map<Long, User> pendingSuppliers = new LinkedHashMap<>();
+    private boolean building;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        long start = System.currentTimeMillis();
+        synchronized (pendingChanges) {
+            building = true;
+        }
+        Page<Product> batch;
+        int page = 0;
+        do {
+            batch = productRepository.findAll(PageRequest.of(page++, REBUILD_BATCH_SIZE, Sort.by("id")));
+            batch.forEach(this::index);
+        } while (batch.hasNext());
+
+        // Applied before building is cleared, so a later change cannot be overtaken by a held one
+        synchronized (pendingChanges) {
+            pendingChanges.values().forEach(this::apply);
+            pendingSuppliers.values().forEach(this::reindexSupplier);
+            pendingChanges.clear();
+            pendingSuppliers.clear();
+            building = false;
+        }
+        ready = true;
+        System.out.println("Product search index built: " + documents.size() + " products in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (pendingChanges) {
+            if (building) {
+                pendingChanges.put(event.getProductId(), event);
+                return;
+            }
+        }
+        apply(event);
+    }
+
+    // The supplier's company name is part of each of its products' documents
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSupplierProfileChanged(SupplierProfileChangedEvent event) {
+        User supplier = event.getSupplier();
+        synchronized (pendingChanges) {
+            if (building) {
+                pendingSuppliers.put(supplier.getId(), supplier);
+                return;
+            }
+        }
+        if (isSupplierNameStale(supplier)) {
+            reindexSupplier(supplier);
+        }
+    }
+
+    private void apply(ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getProductId());
+        } else {
+            index(event.getProduct());
+        }
+    }
+
+    private void reindexSupplier(User supplier) {
+        productRepository.findBySupplier(supplier).forEach(this::index);
+    }
+
+    private boolean isSupplierNameStale(User supplier) {
+        lock.readLock().lock();
+        try {
+            for (IndexedProduct document : documents.values()) {
+                if (supplier.getId().equals(document.supplierId)
+                        && !Objects.equals(supplier.getCompanyName(), document.supplierName)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void index(Product product) {
+        Map<String, Float> terms = new HashMap<>();
+        addField(terms, product.getName(), NAME_WEIGHT);
+        addField(terms, product.getDescription(), DESCRIPTION_WEIGHT);
+        if (product.getCategory() != null) {
+            addField(terms, product.getCategory().getName(), CATEGORY_WEIGHT);
+        }
+        if (product.getSupplier() != null) {
+            addField(terms, product.getSupplier().getCompanyName(), SUPPLIER_WEIGHT);
+        }
+        IndexedProduct document = new IndexedProduct(product, terms);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(product.getId());
+            documents.put(document.id, document);
+            for (Map.Entry<String, Float> term : terms.entrySet()) {
+                postings.computeIfAbsent(term.getKey(), t -> new HashMap<>()).put(document.id, term.getValue());
+            }
+            totalLength += document.length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Page<Long> search(String keyword, Long categoryId, Double minPrice, Double maxPrice,
+                             Long supplierId, Pageable pageable) {
+        Set<String> queryTerms = new LinkedHashSet<>(IndonesianTextAnalyzer.tokenize(keyword));
+        if (queryTerms.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        List<IndexedProduct> hits = new ArrayList<>();
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            double averageLength = documentCount > 0 ? totalLength / documentCount : 1.0;
+            Map<Long, Integer> matchedTerms = new HashMap<>();
+
+            for (String queryTerm : queryTerms) {
+                Set<Long> matchedThisTerm = new HashSet<>();
+                for (Map.Entry<String, Map<Long, Float>> posting : expand(queryTerm).entrySet()) {
+                    int documentFrequency = posting.getValue().size();
+                    double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                    for (Map.Entry<Long, Float> entry : posting.getValue().entrySet()) {
+                        IndexedProduct document = documents.get(entry.getKey());
+                        if (!document.matches(categoryId, minPrice, maxPrice, supplierId)) {
+                            continue;
+                        }
+                        double tf = entry.getValue();
+                        double norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * document.length / averageLength));
+                        scores.merge(document.id, idf * norm, Double::sum);
+                        matchedThisTerm.add(document.id);
+                    }
+                }
+                matchedThisTerm.forEach(id -> matchedTerms.merge(id, 1, Integer::sum));
+            }
+
+            // Prefer products matching every query term; fall back to any term when none do
+            for (Map.Entry<Long, Integer> entry : matchedTerms.entrySet()) {
+                if (entry.getValue() == queryTerms.size()) {
+                    hits.add(documents.get(entry.getKey()));
+                }
+            }
+            if (hits.isEmpty()) {
+                matchedTerms.keySet().forEach(id -> hits.add(documents.get(id)));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        hits.sort(comparator(pageable.getSort(), scores));
+        if (pageable.isUnpaged()) {
+            List<Long> ids = new ArrayList<>(hits.size());
+            hits.forEach(hit -> ids.add(hit.id));
+            return new PageImpl<>(ids);
+        }
+        int from = (int) Math.min(pageable.getOffset(), hits.size());
+        int to = Math.min(from + pageable.getPageSize(), hits.size());
+        List<Long> ids = new ArrayList<>(to - from);
+        for (IndexedProduct hit : hits.subList(from, to)) {
+            ids.add(hit.id);
+        }
+        return new PageImpl<>(ids, pageable, hits.size());
+    }
+
+    // Exact term if indexed, otherwise indexed terms starting with it (partial words like "bera")
+    private SortedMap<String, Map<Long, Float>> expand(String queryTerm) {
+        Map<Long, Float> exact = postings.get(queryTerm);
+        if (exact != null) {
+            return new TreeMap<>(Map.of(queryTerm, exact));
+        }
+        TreeMap<String, Map<Long, Float>> expansions = new TreeMap<>();
+        for (Map.Entry<String, Map<Long, Float>> entry : postings.tailMap(queryTerm, true).entrySet()) {
+            if (!entry.getKey().startsWith(queryTerm) || expansions.size() >= MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            expansions.put(entry.getKey(), entry.getValue());
+        }
+        return expansions;
+    }
+
+    // Price and name sorts are served from the index; anything else keeps relevance order
+    private Comparator<IndexedProduct> comparator(Sort sort, Map<Long, Double> scores) {
+        Comparator<IndexedProduct> relevance = Comparator
+                .comparing((IndexedProduct p) -> scores.getOrDefault(p.id, 0.0)).reversed()
+                .thenComparing(p -> p.id, Comparator.reverseOrder());
+        Sort.Order order = sort.iterator().hasNext() ? sort.iterator().next() : null;
+        if (order == null) {
+            return relevance;
+        }
+        Comparator<IndexedProduct> field;
+        switch (order.getProperty()) {
+            case "price":
+                field = Comparator.comparingDouble(p -> p.price);
+                break;
+            case "name":
+                field = Comparator.comparing(p -> p.name);
+                break;
+            case "id":
+                field = Comparator.comparing(p -> p.id);
+                break;
+            default:
+                return relevance;
+        }
+        return (order.isAscending() ? field : field.reversed()).thenComparing(relevance);
+    }
+
+    private void removeLocked(Long productId) {
+        IndexedProduct existing = documents.remove(productId);
+        if (existing == null) {
+            return;
+        }
+        for (String term : existing.terms) {
+            Map<Long, Float> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(productId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= existing.length;
+    }
+
+    private static void addField(Map<String, Float> terms, String text, float weight) {
+        for (String term : IndonesianTextAnalyzer.tokenize(text)) {
+            terms.merge(term, weight, Float::sum);
+        }
+    }
+
+    // Snapshot of the fields needed to filter and sort without touching the database
+    private static final class IndexedProduct {
+        final Long id;
+        final Long categoryId;
+        final Long supplierId;
+        final String supplierName;
+        final double price;
+        final String name;
+        final Set<String> terms;
+        final float length;
+
+        IndexedProduct(Product product, Map<String, Float> termWeights) {
+            this.id = product.getId();
+            this.categoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+            this.supplierId = product.getSupplier() != null ? product.getSupplier().getId() : null;
+            this.supplierName = product.getSupplier() != null ? product.getSupplier().getCompanyName() : null;
+            this.price = product.getPrice() != null ? product.getPrice().doubleValue() : 0.0;
+            this.name = IndonesianTextAnalyzer.normalize(product.getName());
+            this.terms = termWeights.keySet();
+            float sum = 0f;
+            for (float weight : termWeights.values()) {
+                sum += weight;
+            }
+            this.length = sum;
+        }
+
+        boolean matches(Long categoryId, Double minPrice, Double maxPrice, Long supplierId) {
+            return (categoryId == null || categoryId.equals(this.categoryId))
+                    && (supplierId == null || supplierId.equals(this.supplierId))
+                    && (minPrice == null || price >= minPrice)
+                    && (maxPrice == null || price <= maxPrice);
+        }
+    }
+}
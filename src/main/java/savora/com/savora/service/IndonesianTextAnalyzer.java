@@ -0,0 +1,70 @@
+package savora.com.savora.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Tokenizer for product text: lowercases, strips diacritics, drops common Indonesian and
+ * English stopwords and applies a light suffix stemmer (particles, possessives, -an, -i).
+ * Queries and documents go through the same rules, so over-stemming only merges near forms.
+ */
+public final class IndonesianTextAnalyzer {
+
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final int MIN_STEM_LENGTH = 4;
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "yang", "dan", "di", "ke", "dari", "untuk", "dengan", "ini", "itu", "atau", "pada",
+            "dalam", "adalah", "juga", "akan", "ada", "tidak", "bisa", "sudah", "per", "oleh",
+            "para", "sebagai", "secara", "the", "and", "of", "for", "with", "a", "an", "in");
+
+    private static final String[] PARTICLES = {"lah", "kah", "pun"};
+    private static final String[] POSSESSIVES = {"nya", "ku", "mu"};
+    private static final String[] DERIVATIONAL = {"an", "i"};
+
+    private IndonesianTextAnalyzer() {
+    }
+
+    // Lowercase with accents removed, so "Cafe" and an accented spelling index alike
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("");
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String token : NON_ALPHANUMERIC.split(normalize(text))) {
+            if (!token.isEmpty() && !STOPWORDS.contains(token)) {
+                terms.add(stem(token));
+            }
+        }
+        return terms;
+    }
+
+    public static String stem(String token) {
+        // Leave sizes and codes such as "500gr" or "a4" alone
+        if (!token.chars().allMatch(Character::isLetter)) {
+            return token;
+        }
+        String stem = stripSuffix(token, PARTICLES);
+        stem = stripSuffix(stem, POSSESSIVES);
+        return stripSuffix(stem, DERIVATIONAL);
+    }
+
+    private static String stripSuffix(String token, String[] suffixes) {
+        for (String suffix : suffixes) {
+            if (token.endsWith(suffix) && token.length() - suffix.length() >= MIN_STEM_LENGTH) {
+                return token.substring(0, token.length() - suffix.length());
+            }
+        }
+        return token;
+    }
+}
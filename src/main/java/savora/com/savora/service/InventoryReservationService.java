@@ -0,0 +1,267 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.Order;
+import savora.com.savora.model.OrderItem;
+import savora.com.savora.model.Product;
+import savora.com.savora.model.StockReservation;
+import savora.com.savora.repository.ProductRepository;
+import savora.com.savora.repository.StockReservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Takes stock off products for checkout. Each reservation is a conditional decrement
+ * (stock_quantity >= quantity), so stock can never go negative, plus a HELD row in
+ * stock_reservations that expires if the order is neither paid nor confirmed in time.
+ * All products of a checkout are decremented in one JDBC batch.
+ *
+ * Buyers of the same product on this instance queue on a striped in-memory lock before
+ * touching the row, and the decrement runs in its own short transaction, so a hot product
+ * is locked in the database only for the decrement itself rather than for the whole
+ * checkout. Checkout reserves before its own transaction opens, so it never waits for a
+ * second pooled connection while holding one, and nothing it inserts (order items lock
+ * the products through their foreign key) can block the decrement. The reservations carry
+ * a reference per order and are bound to the order ids once the orders are inserted. If
+ * the checkout fails they are released (releaseReferences, or on rollback when reserveAll
+ * runs inside a transaction), and if the process dies first the expiry sweep releases them.
+ *
+ * OrderStateMachine settles the reservations in the same transaction as each status change:
+ * payment, COD or acceptance by the supplier confirms them for a whole batch of orders in one
+ * update, and cancellation returns the stock of the order whether it was still held or
+ * already confirmed.
+ */
+@Service
+public class InventoryReservationService {
+
+    private static final int LOCK_STRIPES = 64;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${inventory.reservation.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    @Value("${inventory.lock-timeout-ms:5000}")
+    private long lockTimeoutMillis;
+
+    private final TransactionTemplate requiresNew;
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+
+    public InventoryReservationService(PlatformTransactionManager transactionManager) {
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock(true);
+        }
+    }
+
+    // Reserves the items of several orders together, all or nothing, in one batch; keyed by
+    // each order's reference, as the orders are not inserted yet
+    public void reserveAll(Map<String, List<OrderItem>> itemsByReference) {
+        Map<Long, Integer> totals = new TreeMap<>();
+        Map<Long, String> names = new TreeMap<>();
+        List<StockReservation> reservations = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<String, List<OrderItem>> entry : itemsByReference.entrySet()) {
+            Map<Long, Integer> quantities = new TreeMap<>();
+            for (OrderItem item : entry.getValue()) {
+                Product product = item.getProduct();
+                quantities.merge(product.getId(), item.getQuantity(), Integer::sum);
+                totals.merge(product.getId(), item.getQuantity(), Integer::sum);
+                names.put(product.getId(), product.getName());
+            }
+            quantities.forEach((productId, quantity) -> {
+                StockReservation reservation = new StockReservation();
+                reservation.setReference(entry.getKey());
+                reservation.setProductId(productId);
+                reservation.setQuantity(quantity);
+                reservation.setCreatedAt(now);
+                reservation.setExpiresAt(now.plusMinutes(ttlMinutes));
+                reservations.add(reservation);
+            });
+        }
+
+        // Stripes are taken in index order so two multi-product checkouts cannot deadlock
+        TreeSet<Integer> stripeIndexes = new TreeSet<>();
+        totals.keySet().forEach(productId -> stripeIndexes.add(stripeIndex(productId)));
+        List<ReentrantLock> held = new ArrayList<>();
+        try {
+            for (int index : stripeIndexes) {
+                ReentrantLock lock = stripes[index];
+                if (!lock.tryLock(lockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    throw new RuntimeException("Produk sedang ramai dipesan, silakan coba lagi");
+                }
+                held.add(lock);
+            }
+            requiresNew.executeWithoutResult(status -> reserveLocked(totals, names, reservations));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Reservasi stok dibatalkan");
+        } finally {
+            for (ReentrantLock lock : held) {
+                lock.unlock();
+            }
+        }
+
+        // The reservation committed on its own, so undo it if the orders do not
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<String> references = new ArrayList<>(itemsByReference.keySet());
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        releaseReferences(references);
+                    }
+                }
+            });
+        }
+    }
+
+    // Returns the stock still held for a checkout whose orders were not placed; reservations
+    // already bound to a committed order are left alone
+    public void releaseReferences(Collection<String> references) {
+        List<String> held = new ArrayList<>(references);
+        try {
+            requiresNew.executeWithoutResult(status -> releaseReservations(
+                    stockReservationRepository.findByReferenceInAndStatusAndOrderIdIsNull(held, StockReservation.Status.HELD)));
+        } catch (Exception e) {
+            // Left HELD; the expiry sweep releases them later
+            System.err.println("Error releasing stock for failed checkout " + held + ": " + e.getMessage());
+        }
+    }
+
+    // Ties reservations made by reserveAll to the orders just inserted, in the checkout's transaction
+    public void bindOrders(Map<String, Long> orderIdsByReference) {
+        orderIdsByReference.forEach(stockReservationRepository::bindOrder);
+    }
+
+    // Makes the order's held stock permanent (payment received, COD, or accepted by the supplier)
+    @Transactional
+    public int confirm(Long orderId) {
+        return stockReservationRepository.transitionByOrderId(orderId,
+                StockReservation.Status.HELD, StockReservation.Status.CONFIRMED, LocalDateTime.now());
+    }
+
+    // Returns the order's held stock to the products
+    @Transactional
+    public int release(Long orderId) {
+        return releaseHeld(orderId);
+    }
+
+    // Joins the caller's transaction, so the stock change commits or rolls back with the status change
+    @Transactional
+    public void settle(List<OrderStatusChangedEvent> events) {
+        Set<Long> confirmed = new LinkedHashSet<>();
+        List<Long> cancelled = new ArrayList<>();
+        for (OrderStatusChangedEvent event : events) {
+            if (event.getToStatus() == Order.Status.CANCELLED) {
+                if (event.isStatusChanged()) {
+                    cancelled.add(event.getOrderId());
+                }
+            } else if (event.getToStatus() != Order.Status.PENDING
+                    || event.getToPaymentStatus() == Order.PaymentStatus.PAID
+                    || event.getPaymentMethod() == Order.PaymentMethod.CASH_ON_DELIVERY) {
+                confirmed.add(event.getOrderId());
+            }
+        }
+        if (!confirmed.isEmpty()) {
+            stockReservationRepository.transitionByOrderIds(confirmed,
+                    StockReservation.Status.HELD, StockReservation.Status.CONFIRMED, LocalDateTime.now());
+        }
+        for (Long orderId : cancelled) {
+            releaseReservations(orderId, EnumSet.of(StockReservation.Status.HELD, StockReservation.Status.CONFIRMED));
+        }
+    }
+
+    public List<Long> findExpiredOrderIds(int limit) {
+        return stockReservationRepository.findOrderIdsExpiredBefore(StockReservation.Status.HELD,
+                LocalDateTime.now(), PageRequest.of(0, limit));
+    }
+
+    // Returns the stock of expired reservations whose checkout never inserted its orders
+    public int releaseExpiredUnbound(int limit) {
+        int released = 0;
+        for (String reference : stockReservationRepository.findUnboundReferencesExpiredBefore(
+                StockReservation.Status.HELD, LocalDateTime.now(), PageRequest.of(0, limit))) {
+            try {
+                released += requiresNew.execute(status -> releaseReservations(
+                        stockReservationRepository.findByReferenceInAndStatusAndOrderIdIsNull(List.of(reference), StockReservation.Status.HELD)));
+            } catch (Exception e) {
+                System.err.println("Error releasing stock of abandoned checkout " + reference + ": " + e.getMessage());
+            }
+        }
+        return released;
+    }
+
+    private void reserveLocked(Map<Long, Integer> totals, Map<Long, String> names, List<StockReservation> reservations) {
+        List<Long> shortProducts = productRepository.decrementStock(totals);
+        if (!shortProducts.isEmpty()) {
+            // Rolls back the decrements that did succeed
+            Long productId = shortProducts.get(0);
+            Integer available = productRepository.findStockQuantityById(productId);
+            throw new RuntimeException("Stok produk '" + names.get(productId) + "' tidak mencukupi. Stok tersedia: " +
+                (available != null ? available : 0) + ", diminta: " + totals.get(productId));
+        }
+        stockReservationRepository.insertAll(reservations);
+        eventPublisher.publishEvent(new ProductStockChangedEvent(totals.keySet()));
+    }
+
+    private int releaseHeld(Long orderId) {
+        return releaseReservations(orderId, EnumSet.of(StockReservation.Status.HELD));
+    }
+
+    private int releaseReservations(Long orderId, Set<StockReservation.Status> statuses) {
+        return releaseReservations(stockReservationRepository.findByOrderIdAndStatusIn(orderId, statuses));
+    }
+
+    private int releaseReservations(List<StockReservation> reservations) {
+        LocalDateTime now = LocalDateTime.now();
+        int released = 0;
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (StockReservation reservation : reservations) {
+            // Only the caller that flips the row puts the stock back
+            if (stockReservationRepository.transition(reservation.getId(),
+                    reservation.getStatus(), StockReservation.Status.RELEASED, now) == 1) {
+                productRepository.incrementStock(reservation.getProductId(), reservation.getQuantity());
+                productIds.add(reservation.getProductId());
+                released++;
+            }
+        }
+        if (!productIds.isEmpty()) {
+            eventPublisher.publishEvent(new ProductStockChangedEvent(productIds));
+        }
+        return released;
+    }
+
+    private static int stripeIndex(Long productId) {
+        return (int) Math.floorMod(productId, (long) LOCK_STRIPES);
+    }
+}
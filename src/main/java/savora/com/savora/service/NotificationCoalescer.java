@@ -0,0 +1,125 @@
+package savora.com.savora.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folds bursts of one kind of notification for the same recipient into digests. The first
+ * notification for a key is delivered by the caller as usual and opens a window of
+ * windowMillis; notifications for that key arriving while it is open are held, and once it
+ * ends they come back from drainDue as one Digest with their count and the first maxItems of
+ * them. A key that stays quiet for a whole window starts over, so occasional notifications
+ * are never delayed.
+ *
+ * Deciding and holding are separate steps so a caller inside a transaction can decide up
+ * front and hold only once its change has committed. The caller passes the time in; nothing
+ * here depends on Spring or the clock.
+ */
+public class NotificationCoalescer<K, E> {
+
+    private final long windowMillis;
+    private final int maxItems;
+    private final Map<K, Window<E>> windows = new HashMap<>();
+    private final List<Digest<K, E>> closed = new ArrayList<>();
+
+    public NotificationCoalescer(long windowMillis, int maxItems) {
+        this.windowMillis = windowMillis;
+        this.maxItems = Math.max(maxItems, 1);
+    }
+
+    // True when no window was open for the key: one is opened and the caller delivers its notification itself.
+    // False when a window is open: the notification belongs in its digest and should be passed to hold.
+    public synchronized boolean open(K key, long now) {
+        Window<E> window = windows.get(key);
+        if (window != null && now < window.end) {
+            return false;
+        }
+        close(key, window);
+        windows.put(key, new Window<>(now + windowMillis));
+        return true;
+    }
+
+    // Adds a notification to the key's digest; one arriving after its window ended starts a new one
+    public synchronized void hold(K key, E item, long now) {
+        Window<E> window = windows.get(key);
+        if (window == null || now >= window.end) {
+            close(key, window);
+            window = new Window<>(now + windowMillis);
+            windows.put(key, window);
+        }
+        window.count++;
+        if (window.items.size() < maxItems) {
+            window.items.add(item);
+        }
+    }
+
+    // Digests of the windows that have ended by now
+    public synchronized List<Digest<K, E>> drainDue(long now) {
+        Iterator<Map.Entry<K, Window<E>>> iterator = windows.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, Window<E>> entry = iterator.next();
+            if (now >= entry.getValue().end) {
+                close(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+        }
+        return takeClosed();
+    }
+
+    // Digests of every window, ended or not; used on shutdown
+    public synchronized List<Digest<K, E>> drainAll() {
+        windows.forEach(this::close);
+        windows.clear();
+        return takeClosed();
+    }
+
+    public synchronized int openWindows() {
+        return windows.size();
+    }
+
+    // Windows that held nothing produce no digest
+    private void close(K key, Window<E> window) {
+        if (window != null && window.count > 0) {
+            closed.add(new Digest<>(key, window.count, window.items));
+        }
+    }
+
+    private List<Digest<K, E>> takeClosed() {
+        if (closed.isEmpty()) {
+            return List.of();
+        }
+        List<Digest<K, E>> digests = new ArrayList<>(closed);
+        closed.clear();
+        return digests;
+    }
+
+    private static final class Window<E> {
+        final long end;
+        final List<E> items = new ArrayList<>();
+        int count;
+
+        Window(long end) {
+            this.end = end;
+        }
+    }
+
+    public static final class Digest<K, E> {
+        private final K key;
+        private final int count;
+        private final List<E> items;
+
+        Digest(K key, int count, List<E> items) {
+            this.key = key;
+            this.count = count;
+            this.items = List.copyOf(items);
+        }
+
+        public K getKey() { return key; }
+        // All notifications folded into the digest, including those beyond getItems()
+        public int getCount() { return count; }
+        public List<E> getItems() { return items; }
+    }
+}
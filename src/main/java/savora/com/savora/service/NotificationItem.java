@@ -0,0 +1,36 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.Notification;
+
+// Notification as sent to the browser (inbox JSON and pushes), without the user entity
+public class NotificationItem {
+
+    private final Long id;
+    private final String title;
+    private final String message;
+    private final String type;
+    private final boolean read;
+    private final String orderId;
+    private final String actionUrl;
+    private final String createdAt;
+
+    public NotificationItem(Notification notification) {
+        this.id = notification.getId();
+        this.title = notification.getTitle();
+        this.message = notification.getMessage();
+        this.type = notification.getType().name();
+        this.read = Boolean.TRUE.equals(notification.getIsRead());
+        this.orderId = notification.getOrderId();
+        this.actionUrl = notification.getActionUrl();
+        this.createdAt = notification.getCreatedAt().toString();
+    }
+
+    public Long getId() { return id; }
+    public String getTitle() { return title; }
+    public String getMessage() { return message; }
+    public String getType() { return type; }
+    public boolean isRead() { return read; }
+    public String getOrderId() { return orderId; }
+    public String getActionUrl() { return actionUrl; }
+    public String getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,24 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.Notification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Message pushed to a user's open tabs: new notifications and/or a change of the unread count
+public class NotificationPush {
+
+    private final long unreadDelta;
+    private final List<NotificationItem> notifications;
+
+    NotificationPush(long unreadDelta, List<Notification> notifications) {
+        this.unreadDelta = unreadDelta;
+        this.notifications = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            this.notifications.add(new NotificationItem(notification));
+        }
+    }
+
+    public long getUnreadDelta() { return unreadDelta; }
+    public List<NotificationItem> getNotifications() { return notifications; }
+}
@@ -0,0 +1,162 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.Notification;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Pushes new notifications and unread-count deltas to the open tabs of their recipients,
+ * so pages no longer poll for them. Tabs connect over STOMP (/ws, user destination
+ * /user/queue/notifications) or, where WebSocket is unavailable, over server-sent events
+ * (/notifications/stream). STOMP sessions are tracked by the broker's user registry and SSE
+ * connections by a username-keyed registry here; users with neither are skipped without
+ * building a message.
+ *
+ * Nothing is pushed before the change it reports has committed. Sends run on one background
+ * thread so a slow SSE client never holds up a request or a commit. Delivery is best
+ * effort: a tab that was offline catches up from /notifications/count on its next page load.
+ */
+@Service
+public class NotificationPushService {
+
+    public static final String USER_DESTINATION = "/queue/notifications";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private SimpUserRegistry simpUserRegistry;
+
+    @Value("${notifications.push.sse-timeout-ms:1800000}")
+    private long sseTimeoutMillis;
+
+    private final Map<String, Set<SseEmitter>> sseEmitters = new ConcurrentHashMap<>();
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "notification-push");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Opens an SSE stream for one tab of the user
+    public SseEmitter subscribe(String username) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        sseEmitters.computeIfAbsent(username, key -> ConcurrentHashMap.newKeySet()).add(emitter);
+        Runnable remove = () -> removeEmitter(username, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+        return emitter;
+    }
+
+    // Newly stored notifications, one message per recipient; called once they are committed
+    public void pushCreated(List<Notification> notifications) {
+        Map<String, List<Notification>> byUser = new LinkedHashMap<>();
+        for (Notification notification : notifications) {
+            String username = notification.getUser().getUsername();
+            if (isConnected(username)) {
+                byUser.computeIfAbsent(username, key -> new ArrayList<>()).add(notification);
+            }
+        }
+        byUser.forEach((username, created) -> {
+            NotificationPush message = new NotificationPush(created.size(), created);
+            execute(() -> send(username, message));
+        });
+    }
+
+    // Read or deleted notifications: negative deltas, sent once the caller's transaction commits
+    public void pushUnreadDelta(String username, long delta) {
+        if (delta == 0 || !isConnected(username)) {
+            return;
+        }
+        NotificationPush message = new NotificationPush(delta, List.of());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    execute(() -> send(username, message));
+                }
+            });
+        } else {
+            execute(() -> send(username, message));
+        }
+    }
+
+    public boolean isConnected(String username) {
+        return username != null && (simpUserRegistry.getUser(username) != null || sseEmitters.containsKey(username));
+    }
+
+    private void send(String username, NotificationPush message) {
+        try {
+            messagingTemplate.convertAndSendToUser(username, USER_DESTINATION, message);
+        } catch (Exception e) {
+            System.err.println("Error pushing notifications to " + username + ": " + e.getMessage());
+        }
+        Set<SseEmitter> emitters = sseEmitters.get(username);
+        if (emitters != null) {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().name("notification").data(message, MediaType.APPLICATION_JSON));
+                } catch (Exception e) {
+                    // Tab went away; its completion callback removes it
+                    emitter.completeWithError(e);
+                }
+            }
+        }
+    }
+
+    // Keeps idle SSE connections open through proxies and finds tabs that have gone away
+    @Scheduled(fixedDelayString = "${notifications.push.sse-heartbeat-ms:25000}")
+    public void heartbeat() {
+        execute(() -> sseEmitters.values().forEach(emitters -> emitters.forEach(emitter -> {
+            try {
+                emitter.send(SseEmitter.event().comment("ping"));
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+            }
+        })));
+    }
+
+    // Pushes arriving during shutdown are dropped
+    private void execute(Runnable task) {
+        if (!sender.isShutdown()) {
+            try {
+                sender.execute(task);
+            } catch (RejectedExecutionException e) {
+                // Shut down in between
+            }
+        }
+    }
+
+    private void removeEmitter(String username, SseEmitter emitter) {
+        sseEmitters.computeIfPresent(username, (key, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdown();
+        sseEmitters.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        sseEmitters.clear();
+    }
+}
@@ -0,0 +1,56 @@
+package savora.com.savora.service;
+
+import savora.com.savora.repository.NotificationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Keeps the notifications table small: read notifications older than retention-days are
+ * moved to notification_archive. Each batch is copied and deleted in its own short
+ * transaction, so the job never holds locks on a large range of the hot table; unread
+ * notifications are never archived.
+ */
+@Service
+public class NotificationRetentionService {
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${notifications.retention.days:90}")
+    private long retentionDays;
+
+    @Value("${notifications.retention.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${notifications.retention.max-batches:500}")
+    private int maxBatches;
+
+    @Scheduled(cron = "${notifications.retention.cron:0 30 3 * * *}")
+    public void archiveReadNotifications() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        int total = 0;
+        try {
+            // Bounded per run; a large backlog is worked off over several nights
+            for (int batch = 0; batch < maxBatches; batch++) {
+                Integer moved = transactionTemplate.execute(status -> notificationRepository.archiveRead(cutoff, batchSize));
+                total += moved != null ? moved : 0;
+                if (moved == null || moved < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Error archiving notifications after " + total + " rows: " + e.getMessage());
+        }
+        if (total > 0) {
+            System.out.println("Archived " + total + " read notifications older than " + cutoff);
+        }
+    }
+}
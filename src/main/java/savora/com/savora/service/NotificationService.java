@@ -1,64 +1,303 @@
 package savora.com.savora.service;
 
 import savora.com.savora.model.Notification;
+import savora.com.savora.model.NotificationDigestItem;
+import savora.com.savora.model.Order;
+import savora.com.savora.model.OrderItem;
 import savora.com.savora.model.User;
+import savora.com.savora.repository.NotificationDigestItemRepository;
 import savora.com.savora.repository.NotificationRepository;
+import savora.com.savora.repository.UserRepository;
 import savora.com.savora.service.EmailService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
-public class NotificationService {
+public class NotificationService implements OrderEventSubscriber {
+
+    public static final int MAX_INBOX_PAGE_SIZE = 50;
+
+    private static final int STALE_ITEM_BATCH_SIZE = 1000;
+    private static final long MIN_STALE_ITEM_SECONDS = 300;
 
     @Autowired
     private NotificationRepository notificationRepository;
 
+    @Autowired
+    private NotificationWriter notificationWriter;
+
+    @Autowired
+    private NotificationPushService notificationPushService;
+
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private NotificationDigestItemRepository notificationDigestItemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Consecutive new orders for one supplier within window-seconds become one digest; 0 turns this off
+    @Value("${notifications.coalesce.window-seconds:600}")
+    private long coalesceWindowSeconds;
+
+    @Value("${notifications.coalesce.max-orders-listed:10}")
+    private int coalesceMaxOrdersListed;
+
+    // Supplier id to the ids of the digest items held in the current window
+    private NotificationCoalescer<Long, Long> newOrderCoalescer;
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    public void start() {
+        // Keeps every held id: each one's row is deleted when its digest is written
+        newOrderCoalescer = new NotificationCoalescer<>(coalesceWindowSeconds * 1000, Integer.MAX_VALUE);
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
     public Notification createNotification(User user, String title, String message, Notification.Type type) {
         Notification notification = new Notification();
         notification.setUser(user);
         notification.setTitle(title);
         notification.setMessage(message);
         notification.setType(type);
-        return notificationRepository.save(notification);
+        notificationWriter.write(notification);
+        return notification;
     }
 
-    public List<Notification> getUserNotifications(User user) {
-        if (user == null) return new java.util.ArrayList<>();
-        return notificationRepository.findByUserOrderByCreatedAtDesc(user);
+    public List<Notification> getLatestNotifications(String username, int limit) {
+        if (username == null) return new java.util.ArrayList<>();
+        return notificationRepository.findByUserUsernameOrderByCreatedAtDesc(username, PageRequest.of(0, limit));
     }
 
-    public List<Notification> getUnreadNotifications(User user) {
-        if (user == null) return new java.util.ArrayList<>();
-        return notificationRepository.findByUserAndIsReadOrderByCreatedAtDesc(user, false);
+    // One page of the inbox, newest first; read filters to read or unread notifications, null shows all
+    public Page<Notification> getInbox(String username, Boolean read, int page, int size) {
+        PageRequest pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_INBOX_PAGE_SIZE),
+            Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id")));
+        return read == null
+            ? notificationRepository.findByUserUsername(username, pageable)
+            : notificationRepository.findByUserUsernameAndIsRead(username, read, pageable);
     }
 
+    public long countReadNotifications(String username) {
+        return notificationRepository.countByUserUsernameAndIsRead(username, true);
+    }
+
+    // Served from the in-memory counters, not the notifications table
     public Long countUnreadNotifications(User user) {
         if (user == null) return 0L;
-        return notificationRepository.countByUserAndIsRead(user, false);
+        return unreadCounterService.get(user.getUsername());
+    }
+
+    public Long countUnreadNotifications(String username) {
+        return unreadCounterService.get(username);
     }
 
     @Transactional
     public void markAllAsRead(User user) {
         if (user != null) {
-            notificationRepository.markAllAsReadByUser(user);
+            int marked = notificationRepository.markAllAsReadByUser(user);
+            unreadChanged(user.getUsername(), -marked);
         }
     }
 
     public void markAsRead(Long notificationId) {
         Notification notification = notificationRepository.findById(notificationId).orElse(null);
-        if (notification != null) {
+        if (notification != null && !Boolean.TRUE.equals(notification.getIsRead())) {
             notification.setIsRead(true);
             notificationRepository.save(notification);
+            unreadChanged(notification.getUser().getUsername(), -1);
         }
     }
 
     // Helper methods for common notifications
     public void notifyOrderCreated(User buyer, User supplier, String orderId, String productName, Integer quantity) {
+        List<Notification> notifications = new ArrayList<>();
+        List<Notification> supplierNotifications = new ArrayList<>();
+        addOrderCreated(notifications, supplierNotifications, buyer, supplier, orderId, productName, quantity);
+        notifyNewOrders(buyer, notifications, supplierNotifications);
+    }
+
+    // One checkout split into several orders: all buyer and supplier notifications in one batch
+    public void notifyOrdersCreated(User buyer, List<Order> orders) {
+        List<Notification> notifications = new ArrayList<>();
+        List<Notification> supplierNotifications = new ArrayList<>();
+        for (Order order : orders) {
+            OrderItem firstItem = order.getOrderItems().get(0);
+            addOrderCreated(notifications, supplierNotifications, buyer, order.getSupplier(), order.getId().toString(),
+                    firstItem.getProduct().getName(), firstItem.getQuantity());
+        }
+        notifyNewOrders(buyer, notifications, supplierNotifications);
+    }
+
+    // Buyers are notified with the order. Each supplier notification is first written as a pending
+    // digest item in the order's transaction; once committed, a supplier's first new order in a
+    // coalescing window is notified and emailed right away and later ones wait for the window's digest.
+    private void notifyNewOrders(User buyer, List<Notification> notifications, List<Notification> supplierNotifications) {
+        notificationWriter.writeAll(notifications);
+
+        List<NotificationDigestItem> items = new ArrayList<>();
+        for (Notification notification : supplierNotifications) {
+            NotificationDigestItem item = new NotificationDigestItem();
+            item.setUserId(notification.getUser().getId());
+            item.setOrderId(notification.getOrderId());
+            item.setProductName(notification.getProductName());
+            item.setQuantity(notification.getQuantity());
+            items.add(item);
+        }
+        notificationDigestItemRepository.saveAll(items);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    newOrdersCommitted(buyer, supplierNotifications, items);
+                }
+            });
+        } else {
+            newOrdersCommitted(buyer, supplierNotifications, items);
+        }
+    }
+
+    // Runs after the orders committed, so a rolled-back checkout never opens a window
+    private void newOrdersCommitted(User buyer, List<Notification> supplierNotifications, List<NotificationDigestItem> items) {
+        long now = System.currentTimeMillis();
+        List<Notification> delivered = new ArrayList<>();
+        List<NotificationDigestItem> deliveredItems = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            NotificationDigestItem item = items.get(i);
+            if (newOrderCoalescer.open(item.getUserId(), now)) {
+                delivered.add(supplierNotifications.get(i));
+                deliveredItems.add(item);
+            } else {
+                newOrderCoalescer.hold(item.getUserId(), item.getId(), now);
+            }
+        }
+        if (delivered.isEmpty()) {
+            return;
+        }
+        try {
+            // A transaction of its own: the order's has already committed
+            requiresNew.executeWithoutResult(status -> {
+                List<Notification> notifications = new ArrayList<>();
+                for (int i = 0; i < delivered.size(); i++) {
+                    // Skipped if the stale-item sweep got to it first
+                    if (notificationDigestItemRepository.deleteByIds(List.of(deliveredItems.get(i).getId())) == 1) {
+                        notifications.add(delivered.get(i));
+                    }
+                }
+                notificationWriter.writeAll(notifications);
+
+                // Send email notifications
+                for (Notification notification : notifications) {
+                    emailService.sendNewOrderNotification(notification.getUser(), buyer, notification.getOrderId(),
+                            notification.getProductName(), notification.getQuantity());
+                }
+            });
+        } catch (Exception e) {
+            // Still pending: they go out with the window's digest instead
+            System.err.println("Error notifying suppliers of new orders: " + e.getMessage());
+            for (NotificationDigestItem item : deliveredItems) {
+                newOrderCoalescer.hold(item.getUserId(), item.getId(), now);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.coalesce.flush-interval-ms:30000}")
+    public void flushNewOrderDigests() {
+        for (NotificationCoalescer.Digest<Long, Long> digest : newOrderCoalescer.drainDue(System.currentTimeMillis())) {
+            deliverDigest(digest.getKey(), digest.getItems());
+        }
+        deliverStaleItems();
+    }
+
+    // Held items are delivered on the way down rather than waiting for the stale-item sweep after restart
+    @PreDestroy
+    public void flushAllNewOrderDigests() {
+        for (NotificationCoalescer.Digest<Long, Long> digest : newOrderCoalescer.drainAll()) {
+            deliverDigest(digest.getKey(), digest.getItems());
+        }
+    }
+
+    // Items older than two windows are held by no instance: written before a crash or restart,
+    // or left by a failed delivery. They go out as digests, one per supplier.
+    private void deliverStaleItems() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(Math.max(2 * coalesceWindowSeconds, MIN_STALE_ITEM_SECONDS));
+        Map<Long, List<Long>> idsBySupplier = new LinkedHashMap<>();
+        for (NotificationDigestItem item : notificationDigestItemRepository.findByCreatedAtBeforeOrderByUserIdAscIdAsc(
+                cutoff, PageRequest.of(0, STALE_ITEM_BATCH_SIZE))) {
+            idsBySupplier.computeIfAbsent(item.getUserId(), key -> new ArrayList<>()).add(item.getId());
+        }
+        idsBySupplier.forEach(this::deliverDigest);
+    }
+
+    // One notification row and one email for the supplier's items still pending; they are deleted
+    // in the same transaction, so each item is notified exactly once
+    private void deliverDigest(Long supplierId, List<Long> itemIds) {
+        try {
+            requiresNew.executeWithoutResult(status -> {
+                List<NotificationDigestItem> items = notificationDigestItemRepository.findByIdInForUpdate(itemIds);
+                if (items.isEmpty()) {
+                    return;
+                }
+                notificationDigestItemRepository.deleteByIds(items.stream().map(NotificationDigestItem::getId).toList());
+                User supplier = userRepository.findById(supplierId).orElse(null);
+                if (supplier == null) {
+                    return;
+                }
+                List<NotificationDigestItem> listed = items.subList(0, Math.min(items.size(), coalesceMaxOrdersListed));
+                notificationWriter.write(newOrderDigest(supplier, items.size(), listed));
+                emailService.sendNewOrderDigest(supplier, items.size(), listed);
+            });
+        } catch (Exception e) {
+            // Left pending; the stale-item sweep retries them
+            System.err.println("Error writing new order digest for supplier " + supplierId + ": " + e.getMessage());
+        }
+    }
+
+    private Notification newOrderDigest(User supplier, int count, List<NotificationDigestItem> listed) {
+        StringBuilder message = new StringBuilder().append(count).append(" pesanan baru masuk: ");
+        for (int i = 0; i < listed.size(); i++) {
+            message.append(i == 0 ? "#" : ", #").append(listed.get(i).getOrderId());
+        }
+        if (count > listed.size()) {
+            message.append(" dan ").append(count - listed.size()).append(" lainnya");
+        }
+        Notification notification = newNotification(supplier, "Pesanan Baru Masuk",
+            message.append('.').toString(), Notification.Type.ORDER_UPDATE, null);
+        notification.setActionUrl("/orders/supplier");
+        notification.setActionText("Lihat Pesanan");
+        return notification;
+    }
+
+    private void addOrderCreated(List<Notification> notifications, List<Notification> supplierNotifications, User buyer,
+                                 User supplier, String orderId, String productName, Integer quantity) {
         // Notify buyer
         Notification buyerNotification = new Notification();
         buyerNotification.setUser(buyer);
@@ -68,7 +307,7 @@ public class NotificationService {
         buyerNotification.setOrderId(orderId);
         buyerNotification.setProductName(productName);
         buyerNotification.setQuantity(quantity);
-        notificationRepository.save(buyerNotification);
+        notifications.add(buyerNotification);
 
         // Notify supplier
         Notification supplierNotification = new Notification();
@@ -79,74 +318,115 @@ public class NotificationService {
         supplierNotification.setOrderId(orderId);
         supplierNotification.setProductName(productName);
         supplierNotification.setQuantity(quantity);
-        notificationRepository.save(supplierNotification);
-
-        // Send email notifications
-        emailService.sendNewOrderNotification(supplier, buyer, orderId, productName, quantity);
+        supplierNotifications.add(supplierNotification);
     }
 
     public void notifyPaymentConfirmed(User buyer, User supplier, String orderId, Double amount, String paymentMethod) {
-        // Notify buyer
-        Notification buyerNotification = new Notification();
-        buyerNotification.setUser(buyer);
-        buyerNotification.setTitle("Pembayaran Dikonfirmasi");
-        buyerNotification.setMessage("Pembayaran sebesar Rp " + String.format("%,.0f", amount) + " untuk pesanan #" + orderId + " telah dikonfirmasi.");
-        buyerNotification.setType(Notification.Type.PAYMENT_CONFIRMED);
-        buyerNotification.setOrderId(orderId);
-        notificationRepository.save(buyerNotification);
-
-        // Notify supplier
-        Notification supplierNotification = new Notification();
-        supplierNotification.setUser(supplier);
-        supplierNotification.setTitle("Pembayaran Masuk");
-        supplierNotification.setMessage("Pembayaran sebesar Rp " + String.format("%,.0f", amount) + " untuk pesanan #" + orderId + " telah diterima via " + paymentMethod + ".");
-        supplierNotification.setType(Notification.Type.PAYMENT_CONFIRMED);
-        supplierNotification.setOrderId(orderId);
-        notificationRepository.save(supplierNotification);
+        List<Notification> notifications = new ArrayList<>();
+        addPaymentConfirmed(notifications, buyer, supplier, orderId, amount, paymentMethod);
+        notificationWriter.writeAll(notifications);
     }
 
     public void notifyOrderShipped(User buyer, String orderId, String trackingNumber, String estimatedDelivery) {
-        Notification notification = new Notification();
-        notification.setUser(buyer);
-        notification.setTitle("Pesanan Dikirim");
-        notification.setMessage("Pesanan #" + orderId + " telah dikirim. Nomor tracking: " + trackingNumber + ". Estimasi tiba: " + estimatedDelivery);
-        notification.setType(Notification.Type.SHIPPING_UPDATE);
-        notification.setOrderId(orderId);
-        notificationRepository.save(notification);
+        notificationWriter.write(orderShipped(buyer, orderId, trackingNumber, estimatedDelivery));
     }
 
     public void notifyOrderConfirmed(User buyer, String orderId, String estimatedShipping) {
-        Notification notification = new Notification();
-        notification.setUser(buyer);
-        notification.setTitle("Pesanan Dikonfirmasi");
-        notification.setMessage("Pesanan #" + orderId + " telah dikonfirmasi oleh supplier. Estimasi pengiriman: " + estimatedShipping);
-        notification.setType(Notification.Type.ORDER_UPDATE);
-        notification.setOrderId(orderId);
-        notificationRepository.save(notification);
+        notificationWriter.write(orderConfirmed(buyer, orderId, estimatedShipping));
     }
 
     public void notifyPaymentApproved(User buyer, String orderId, Double amount) {
-        Notification notification = new Notification();
-        notification.setUser(buyer);
-        notification.setTitle("Pembayaran Disetujui");
-        notification.setMessage("Pembayaran sebesar Rp " + String.format("%,.0f", amount) + " untuk pesanan #" + orderId + " telah disetujui.");
-        notification.setType(Notification.Type.PAYMENT_CONFIRMED);
-        notification.setOrderId(orderId);
-        notificationRepository.save(notification);
+        notificationWriter.write(paymentApproved(buyer, orderId, amount));
     }
 
     public void notifyOrderStatusUpdate(User buyer, User supplier, String orderId, String newStatus) {
+        List<Notification> notifications = new ArrayList<>();
+        addOrderStatusUpdate(notifications, buyer, supplier, orderId, newStatus);
+        notificationWriter.writeAll(notifications);
+    }
+
+    // Status and payment changes from the order state machine, one insert batch per set of events
+    @Override
+    public void onOrderEvents(List<OrderStatusChangedEvent> events) {
+        List<Notification> notifications = new ArrayList<>();
+        for (OrderStatusChangedEvent event : events) {
+            String orderId = event.getOrderId().toString();
+            Double amount = event.getTotalAmount().doubleValue();
+            if (!event.isStatusChanged()) {
+                if (event.isPaymentReceived()) {
+                    notifications.add(paymentApproved(event.getBuyer(), orderId, amount));
+                }
+            } else if (event.getToStatus() == Order.Status.CONFIRMED && event.isPaymentReceived()) {
+                addPaymentConfirmed(notifications, event.getBuyer(), event.getSupplier(), orderId, amount,
+                    event.getPaymentMethod() != null ? event.getPaymentMethod().name() : "-");
+            } else if (event.getToStatus() == Order.Status.CONFIRMED) {
+                notifications.add(orderConfirmed(event.getBuyer(), orderId, "2-3 hari kerja"));
+            } else if (event.getToStatus() == Order.Status.SHIPPED) {
+                notifications.add(orderShipped(event.getBuyer(), orderId,
+                    event.getTrackingNumber() != null ? event.getTrackingNumber() : "TBA", "3-5 hari kerja"));
+            } else {
+                addOrderStatusUpdate(notifications, event.getBuyer(), event.getSupplier(), orderId,
+                    event.getNote() != null ? event.getNote() : event.getToStatus().name());
+            }
+        }
+        if (!notifications.isEmpty()) {
+            notificationWriter.writeAll(notifications);
+        }
+    }
+
+    private void addPaymentConfirmed(List<Notification> notifications, User buyer, User supplier, String orderId,
+                                     Double amount, String paymentMethod) {
         // Notify buyer
-        createNotification(buyer,
-            "Status Pesanan Diperbarui",
-            "Status pesanan #" + orderId + " telah diperbarui menjadi: " + newStatus,
-            Notification.Type.ORDER_UPDATE);
+        notifications.add(newNotification(buyer, "Pembayaran Dikonfirmasi",
+            "Pembayaran sebesar Rp " + String.format("%,.0f", amount) + " untuk pesanan #" + orderId + " telah dikonfirmasi.",
+            Notification.Type.PAYMENT_CONFIRMED, orderId));
 
         // Notify supplier
-        createNotification(supplier,
-            "Status Pesanan Diperbarui",
-            "Status pesanan #" + orderId + " telah diperbarui menjadi: " + newStatus,
-            Notification.Type.INFO);
+        notifications.add(newNotification(supplier, "Pembayaran Masuk",
+            "Pembayaran sebesar Rp " + String.format("%,.0f", amount) + " untuk pesanan #" + orderId + " telah diterima via " + paymentMethod + ".",
+            Notification.Type.PAYMENT_CONFIRMED, orderId));
+    }
+
+    private Notification orderShipped(User buyer, String orderId, String trackingNumber, String estimatedDelivery) {
+        return newNotification(buyer, "Pesanan Dikirim",
+            "Pesanan #" + orderId + " telah dikirim. Nomor tracking: " + trackingNumber + ". Estimasi tiba: " + estimatedDelivery,
+            Notification.Type.SHIPPING_UPDATE, orderId);
+    }
+
+    private Notification orderConfirmed(User buyer, String orderId, String estimatedShipping) {
+        return newNotification(buyer, "Pesanan Dikonfirmasi",
+            "Pesanan #" + orderId + " telah dikonfirmasi oleh supplier. Estimasi pengiriman: " + estimatedShipping,
+            Notification.Type.ORDER_UPDATE, orderId);
+    }
+
+    private Notification paymentApproved(User buyer, String orderId, Double amount) {
+        return newNotification(buyer, "Pembayaran Disetujui",
+            "Pembayaran sebesar Rp " + String.format("%,.0f", amount) + " untuk pesanan #" + orderId + " telah disetujui.",
+            Notification.Type.PAYMENT_CONFIRMED, orderId);
+    }
+
+    private void addOrderStatusUpdate(List<Notification> notifications, User buyer, User supplier, String orderId,
+                                      String newStatus) {
+        String message = "Status pesanan #" + orderId + " telah diperbarui menjadi: " + newStatus;
+        // Notify buyer
+        notifications.add(newNotification(buyer, "Status Pesanan Diperbarui", message, Notification.Type.ORDER_UPDATE, orderId));
+        // Notify supplier
+        notifications.add(newNotification(supplier, "Status Pesanan Diperbarui", message, Notification.Type.INFO, orderId));
+    }
+
+    private Notification newNotification(User user, String title, String message, Notification.Type type, String orderId) {
+        Notification notification = new Notification();
+        notification.setUser(user);
+        notification.setTitle(title);
+        notification.setMessage(message);
+        notification.setType(type);
+        notification.setOrderId(orderId);
+        return notification;
+    }
+
+    private void unreadChanged(String username, long delta) {
+        unreadCounterService.adjust(username, delta);
+        notificationPushService.pushUnreadDelta(username, delta);
     }
 
     public void notifyProductAdded(User supplier, String productName) {
@@ -157,6 +437,12 @@ public class NotificationService {
     }
 
     public void deleteNotification(Long notificationId) {
-        notificationRepository.deleteById(notificationId);
+        Notification notification = notificationRepository.findById(notificationId).orElse(null);
+        if (notification != null) {
+            notificationRepository.delete(notification);
+            if (!Boolean.TRUE.equals(notification.getIsRead())) {
+                unreadChanged(notification.getUser().getUsername(), -1);
+            }
+        }
     }
 }
\ No newline at end of file
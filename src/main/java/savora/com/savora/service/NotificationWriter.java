@@ -0,0 +1,125 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.Notification;
+import savora.com.savora.repository.NotificationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batches notification inserts. Notifications written inside a transaction are collected
+ * and inserted together just before it commits, so they are durable exactly when the change
+ * that caused them is, and a checkout or status update pays one batch instead of one INSERT
+ * per recipient. A failed insert fails that transaction, so nothing is committed without its
+ * notifications.
+ *
+ * Outside a transaction the caller's notifications are inserted right away in a transaction
+ * of their own; a failed batch is retried a few times with a short backoff and, if it still
+ * fails, the error is rethrown to the caller rather than the notifications being dropped.
+ *
+ * Once stored, notifications are added to the unread counters and pushed to recipients
+ * with an open tab.
+ *
+ * Every batch is one JDBC batch; with rewriteBatchedStatements on the JDBC URL the driver
+ * sends it as multi-row INSERTs.
+ */
+@Service
+public class NotificationWriter {
+
+    private static final int MAX_INSERT_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MILLIS = 100;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private NotificationPushService notificationPushService;
+
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
+    public void write(Notification notification) {
+        writeAll(List.of(notification));
+    }
+
+    public void writeAll(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            pendingInTransaction().addAll(notifications);
+        } else {
+            insert(List.copyOf(notifications));
+        }
+    }
+
+    // Notifications of the current transaction, inserted in one batch before it commits
+    private List<Notification> pendingInTransaction() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingNotifications pending && pending.writer == this) {
+                return pending.notifications;
+            }
+        }
+        PendingNotifications pending = new PendingNotifications(this);
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending.notifications;
+    }
+
+    private void insert(List<Notification> notifications) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> notificationRepository.insertAll(notifications));
+                break;
+            } catch (RuntimeException e) {
+                if (attempt >= MAX_INSERT_ATTEMPTS) {
+                    throw e;
+                }
+                System.err.println("Error writing " + notifications.size() + " notifications (attempt " + attempt
+                        + " of " + MAX_INSERT_ATTEMPTS + "): " + e.getMessage());
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MILLIS * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+        stored(notifications);
+    }
+
+    // Committed: count them as unread and push them to open tabs
+    private void stored(List<Notification> notifications) {
+        unreadCounterService.notificationsCreated(notifications);
+        notificationPushService.pushCreated(notifications);
+    }
+
+    // Registered once per transaction; suspended transactions keep their own
+    private static final class PendingNotifications implements TransactionSynchronization {
+        final NotificationWriter writer;
+        final List<Notification> notifications = new ArrayList<>();
+
+        PendingNotifications(NotificationWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            writer.notificationRepository.insertAll(notifications);
+        }
+
+        @Override
+        public void afterCommit() {
+            writer.stored(notifications);
+        }
+    }
+}
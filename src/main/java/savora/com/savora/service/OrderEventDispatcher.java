@@ -0,0 +1,42 @@
+package savora.com.savora.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Hands order events to the OrderEventSubscriber beans inside the transaction that made the
+ * change, so the buyer's email (an email outbox row), the notification rows and the supplier
+ * rollup deltas commit or roll back together with the status change itself. Nothing is held
+ * in memory, so a crash cannot lose them. Every subscriber gets the whole batch, so a bulk
+ * status change costs each subscriber one pass (one notification insert, one rollup upsert
+ * per supplier and day) instead of one per order.
+ *
+ * A failing subscriber fails the status change; the caller sees the error and nothing is
+ * left half-applied.
+ */
+@Service
+public class OrderEventDispatcher {
+
+    @Autowired
+    private List<OrderEventSubscriber> subscribers;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(OrderStatusChangedEvent event) {
+        publishAll(List.of(event));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishAll(List<OrderStatusChangedEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<OrderStatusChangedEvent> batch = List.copyOf(events);
+        for (OrderEventSubscriber subscriber : subscribers) {
+            subscriber.onOrderEvents(batch);
+        }
+    }
+}
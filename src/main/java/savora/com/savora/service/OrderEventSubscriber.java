@@ -0,0 +1,9 @@
+package savora.com.savora.service;
+
+import java.util.List;
+
+// Receives order events from OrderEventDispatcher, in order, a batch at a time, inside the transaction that made them
+public interface OrderEventSubscriber {
+
+    void onOrderEvents(List<OrderStatusChangedEvent> events);
+}
@@ -0,0 +1,64 @@
+package savora.com.savora.service;
+
+import savora.com.savora.repository.OrderRepository;
+import savora.com.savora.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Numbers existing orders per buyer and per supplier by their position in creation order (ties by ID),
+// matching the numbering the order lists used to compute on every request
+@Service
+@Order(3)
+public class OrderSequenceMigration implements StartupMigration {
+
+    // Each user's whole order history is loaded, so keep batches small
+    private static final int MAX_USERS_PER_BATCH = 50;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Override
+    public String getName() {
+        return "order-sequence-backfill";
+    }
+
+    @Override
+    public Long migrateBatch(Long afterId, int batchSize) {
+        List<Long> userIds = userRepository.findIdsAfter(afterId != null ? afterId : 0L,
+                PageRequest.of(0, Math.min(batchSize, MAX_USERS_PER_BATCH)));
+        if (userIds.isEmpty()) {
+            return null;
+        }
+
+        // Orders arrive in placement order; a running counter per owner gives each its position
+        List<savora.com.savora.model.Order> changed = new ArrayList<>();
+        Map<Long, Integer> buyerCounters = new HashMap<>();
+        for (savora.com.savora.model.Order order : orderRepository.findByBuyerIdsInPlacementOrder(userIds)) {
+            int sequence = buyerCounters.merge(order.getBuyer().getId(), 1, Integer::sum);
+            if (order.getBuyerSequence() == null) {
+                order.setBuyerSequence(sequence);
+                changed.add(order);
+            }
+        }
+        Map<Long, Integer> supplierCounters = new HashMap<>();
+        for (savora.com.savora.model.Order order : orderRepository.findBySupplierIdsInPlacementOrder(userIds)) {
+            int sequence = supplierCounters.merge(order.getSupplier().getId(), 1, Integer::sum);
+            if (order.getSupplierSequence() == null) {
+                order.setSupplierSequence(sequence);
+                changed.add(order);
+            }
+        }
+        orderRepository.saveAll(changed);
+        return userIds.get(userIds.size() - 1);
+    }
+}
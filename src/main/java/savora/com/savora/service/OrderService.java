@@ -2,21 +2,34 @@ package savora.com.savora.service;
 
 import savora.com.savora.model.Order;
 import savora.com.savora.model.OrderItem;
-import savora.com.savora.model.Product;
 import savora.com.savora.model.User;
 import savora.com.savora.repository.OrderRepository;
 import savora.com.savora.service.NotificationService;
 import savora.com.savora.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 @Service
 public class OrderService {
 
+    private static final int EXPIRY_BATCH_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 50;
+    private static final int MAX_BULK_ORDERS = 500;
+
     @Autowired
     private OrderRepository orderRepository;
 
@@ -26,6 +39,30 @@ public class OrderService {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private SupplierStatsService supplierStatsService;
+
+    @Autowired
+    private AnalyticsCacheService analyticsCacheService;
+
+    @Autowired
+    private SequenceAllocator sequenceAllocator;
+
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
+    @Autowired
+    private ShippingRateTable shippingRateTable;
+
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     public List<Order> getOrdersByBuyer(User buyer) {
         return orderRepository.findByBuyer(buyer);
     }
@@ -34,106 +71,183 @@ public class OrderService {
         return orderRepository.findBySupplier(supplier);
     }
 
-    public Order saveOrder(Order order) {
-        return orderRepository.save(order);
+    // One page of the buyer's order list, newest first; from and to are inclusive dates
+    public Page<OrderSummary> getOrderSummariesForBuyer(User buyer, Order.Status status, LocalDate from, LocalDate to,
+                                                        int page, int size) {
+        return withItems(orderRepository.findRowsByBuyer(buyer, status, startOf(from), endOf(to), pageRequest(page, size)));
+    }
+
+    public Page<OrderSummary> getOrderSummariesForSupplier(User supplier, Order.Status status, LocalDate from, LocalDate to,
+                                                           int page, int size) {
+        return withItems(orderRepository.findRowsBySupplier(supplier, status, startOf(from), endOf(to), pageRequest(page, size)));
+    }
+
+    // Attaches the item lines of the whole page with one query instead of one per order
+    private Page<OrderSummary> withItems(Page<OrderRepository.OrderRow> rows) {
+        Map<Long, OrderSummary> summaries = new LinkedHashMap<>();
+        rows.forEach(row -> summaries.put(row.getId(), new OrderSummary(row)));
+        if (!summaries.isEmpty()) {
+            for (OrderRepository.OrderItemRow item : orderRepository.findItemRowsByOrderIds(summaries.keySet())) {
+                summaries.get(item.getOrderId()).addItem(item);
+            }
+        }
+        return rows.map(row -> summaries.get(row.getId()));
+    }
+
+    private static PageRequest pageRequest(int page, int size) {
+        return PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+    }
+
+    private static LocalDateTime startOf(LocalDate date) {
+        return date != null ? date.atStartOfDay() : null;
+    }
+
+    private static LocalDateTime endOf(LocalDate date) {
+        return date != null ? date.plusDays(1).atStartOfDay() : null;
     }
 
     public Optional<Order> getOrderById(Long id) {
         return orderRepository.findById(id);
     }
 
-    @Transactional
-    public Order createOrder(User buyer, List<OrderItem> items) {
+    /**
+     * Places a checkout: one order per supplier among the items, each with the command's
+     * payment and shipping details, its shipping cost from the rate table and its final
+     * total, so every order is written exactly once. Stock for all of them is reserved in one
+     * batched decrement in its own short transaction before the checkout's opens (see
+     * InventoryReservationService), so a checkout never holds two pooled connections; then
+     * orders and items are inserted in JDBC batches and the notifications together. If the
+     * checkout transaction fails, the reserved stock is put back.
+     */
+    public List<Order> checkout(CheckoutCommand command) {
+        List<OrderItem> items = command.getItems();
         if (items == null || items.isEmpty()) {
             throw new RuntimeException("Tidak ada item dalam pesanan");
         }
 
-        // Validate all items have the same supplier
-        User supplier = items.get(0).getProduct().getSupplier();
-        if (supplier == null) {
-            throw new RuntimeException("Supplier tidak ditemukan untuk produk");
-        }
-
+        Map<Long, Order> ordersBySupplier = new LinkedHashMap<>();
         for (OrderItem item : items) {
-            if (!supplier.equals(item.getProduct().getSupplier())) {
-                throw new RuntimeException("Semua produk harus dari supplier yang sama");
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new RuntimeException("Jumlah pesanan tidak valid");
             }
+            User supplier = item.getProduct().getSupplier();
+            if (supplier == null) {
+                throw new RuntimeException("Supplier tidak ditemukan untuk produk");
+            }
+            Order order = ordersBySupplier.computeIfAbsent(supplier.getId(), id -> newOrder(command, supplier));
+            order.getOrderItems().add(item);
+            item.setOrder(order);
+            order.setSubtotalAmount(order.getSubtotalAmount()
+                    .add(item.getPrice().multiply(java.math.BigDecimal.valueOf(item.getQuantity()))));
         }
 
-        // Validate stock availability and reserve stock
-        for (OrderItem item : items) {
-            Product product = item.getProduct();
-            Integer currentStock = product.getStockQuantity();
-            if (currentStock == null || currentStock < item.getQuantity()) {
-                throw new RuntimeException("Stok produk '" + product.getName() + "' tidak mencukupi. Stok tersedia: " +
-                    (currentStock != null ? currentStock : 0) + ", diminta: " + item.getQuantity());
+        List<Order> orders = new ArrayList<>(ordersBySupplier.values());
+        Map<String, Order> ordersByReference = new LinkedHashMap<>();
+        Map<String, List<OrderItem>> itemsByReference = new LinkedHashMap<>();
+        for (Order order : orders) {
+            String reference = UUID.randomUUID().toString();
+            ordersByReference.put(reference, order);
+            itemsByReference.put(reference, order.getOrderItems());
+        }
+        inventoryReservationService.reserveAll(itemsByReference);
+        try {
+            return transactionTemplate.execute(status -> placeOrders(command, orders, ordersByReference));
+        } catch (RuntimeException e) {
+            inventoryReservationService.releaseReferences(itemsByReference.keySet());
+            throw e;
+        }
+    }
+
+    private List<Order> placeOrders(CheckoutCommand command, List<Order> orders, Map<String, Order> ordersByReference) {
+        for (Order order : orders) {
+            order.setTotalAmount(order.getSubtotalAmount().add(order.getShippingCost()));
+        }
+        // Last before the insert: the counter rows stay locked until the checkout commits
+        assignSequences(command.getBuyer(), orders);
+        orderRepository.insertAll(orders);
+
+        Map<String, Long> orderIdsByReference = new LinkedHashMap<>();
+        ordersByReference.forEach((reference, order) -> orderIdsByReference.put(reference, order.getId()));
+        inventoryReservationService.bindOrders(orderIdsByReference);
+        productService.recordSales(command.getItems());
+
+        for (Order order : orders) {
+            if (order.getPaymentMethod() == Order.PaymentMethod.CASH_ON_DELIVERY) {
+                inventoryReservationService.confirm(order.getId());
             }
+            supplierStatsService.recordOrderCreated(order);
+            evictAnalytics(order);
         }
 
-        // Calculate total amount
-        java.math.BigDecimal totalAmount = java.math.BigDecimal.ZERO;
-        for (OrderItem item : items) {
-            totalAmount = totalAmount.add(item.getPrice().multiply(java.math.BigDecimal.valueOf(item.getQuantity())));
+        if (command.isClearsCart()) {
+            cartService.clearCart(command.getBuyer());
         }
 
+        notificationService.notifyOrdersCreated(command.getBuyer(), orders);
+        return orders;
+    }
+
+    private Order newOrder(CheckoutCommand command, User supplier) {
         Order order = new Order();
-        order.setBuyer(buyer);
+        order.setBuyer(command.getBuyer());
         order.setSupplier(supplier);
-        order.setSubtotalAmount(totalAmount);
-        order.setTotalAmount(totalAmount); // Will be updated with shipping cost later
-        order.setOrderItems(new java.util.ArrayList<>(items));
-
-        // Set order reference in items
-        for (OrderItem item : items) {
-            item.setOrder(order);
-        }
+        order.setOrderItems(new ArrayList<>());
+        order.setSubtotalAmount(java.math.BigDecimal.ZERO);
+        order.setPaymentMethod(command.getPaymentMethod());
+        order.setShippingMethod(command.getShippingMethod());
+        order.setShippingAddress(command.getShippingAddress());
+        order.setShippingCity(command.getShippingCity());
+        order.setShippingProvince(command.getShippingProvince());
+        order.setShippingPostalCode(command.getShippingPostalCode());
+        order.setShippingPhone(command.getShippingPhone());
+        order.setShippingCost(shippingRateTable.costOf(command.getShippingMethod()));
+        return order;
+    }
 
-        Order savedOrder = orderRepository.save(order);
+    // Status and payment changes go through the state machine, which settles stock in the same
+    // transaction; notifications, emails and analytics follow from its events after commit
+    @Transactional
+    public void updateOrderStatus(Long orderId, Order.Status status) {
+        Order order = orderRepository.findById(orderId).orElseThrow(() -> new RuntimeException("Order not found"));
+        orderStateMachine.transition(order, status);
+    }
 
-        // Reduce stock for each product after successful order creation
-        for (OrderItem item : items) {
-            Product product = item.getProduct();
-            Integer currentStock = product.getStockQuantity();
-            if (currentStock != null) {
-                int newStock = currentStock - item.getQuantity();
-                product.setStockQuantity(newStock);
-                productService.saveProduct(product);
-                System.out.println("Stock reduced for product " + product.getName() + ": " + currentStock + " -> " + newStock);
-            }
+    /**
+     * Moves many of a supplier's orders to one status in a single transaction: one locking
+     * select that also checks ownership, one UPDATE for all of them, and one event batch.
+     * Orders the supplier does not own or that cannot take the status are skipped; the ids
+     * actually changed are returned.
+     */
+    @Transactional
+    public List<Long> updateOrderStatuses(User supplier, List<Long> orderIds, Order.Status status) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            return List.of();
         }
-
-        // Send notification for new order
-        if (!items.isEmpty()) {
-            String productName = items.get(0).getProduct().getName();
-            int quantity = items.get(0).getQuantity();
-            notificationService.notifyOrderCreated(buyer, supplier, savedOrder.getId().toString(), productName, quantity);
+        if (orderIds.size() > MAX_BULK_ORDERS) {
+            throw new RuntimeException("Maksimal " + MAX_BULK_ORDERS + " pesanan per pembaruan");
         }
+        List<Order> orders = orderRepository.findBySupplierAndIdIn(supplier, new java.util.TreeSet<>(orderIds));
+        return orderStateMachine.transitionAll(orders, status);
+    }
 
-        return savedOrder;
+    @Transactional
+    public void updatePaymentStatus(Order order, Order.PaymentStatus paymentStatus) {
+        orderStateMachine.changePaymentStatus(order, paymentStatus);
     }
 
     @Transactional
-    public Order updateOrder(Order order) {
-        return orderRepository.save(order);
+    public void confirmPayment(Order order) {
+        orderStateMachine.confirmPayment(order);
     }
 
     @Transactional
-    public void updateOrderStatus(Long orderId, Order.Status status) {
-        Order order = orderRepository.findById(orderId).orElseThrow();
-        Order.Status oldStatus = order.getStatus();
-        order.setStatus(status);
-        Order savedOrder = orderRepository.save(order);
+    public void cancelOrder(Order order) {
+        orderStateMachine.cancel(order, order.getPaymentStatus(), null);
+    }
 
-        // Send notifications based on status change
-        if (status == Order.Status.CONFIRMED && oldStatus != Order.Status.CONFIRMED) {
-            // Notify buyer that order is confirmed
-            notificationService.notifyOrderConfirmed(savedOrder.getBuyer(), savedOrder.getId().toString(), "2-3 hari kerja");
-        } else if (status == Order.Status.SHIPPED && oldStatus != Order.Status.SHIPPED) {
-            // Notify buyer that order is shipped
-            notificationService.notifyOrderShipped(savedOrder.getBuyer(), savedOrder.getId().toString(),
-                savedOrder.getTrackingNumber() != null ? savedOrder.getTrackingNumber() : "TBA",
-                "3-5 hari kerja");
-        }
+    @Transactional
+    public void updateShippingInfo(Order order, String trackingNumber, String courierName) {
+        orderStateMachine.ship(order, trackingNumber, courierName);
     }
 
     public List<Order> getOrdersByBuyerAndStatus(User buyer, Order.Status status) {
@@ -163,31 +277,63 @@ public class OrderService {
         }
 
         orderRepository.delete(order);
+        supplierStatsService.recordOrderDeleted(order);
+        evictAnalytics(order);
     }
 
-    // Get sequential order ID for buyer (1, 2, 3, etc. based on their orders)
-    public Integer getSequentialOrderIdForBuyer(Order order, User buyer) {
-        List<Order> buyerOrders = orderRepository.findByBuyer(buyer);
-        buyerOrders.sort((o1, o2) -> o1.getCreatedAt().compareTo(o2.getCreatedAt()));
-
-        for (int i = 0; i < buyerOrders.size(); i++) {
-            if (buyerOrders.get(i).getId().equals(order.getId())) {
-                return i + 1; // Start from 1
+    // Cancels orders whose stock reservation ran out before payment
+    @Scheduled(fixedDelayString = "${inventory.reservation.sweep-interval-ms:60000}")
+    public void expireUnpaidOrders() {
+        inventoryReservationService.releaseExpiredUnbound(EXPIRY_BATCH_SIZE);
+        for (Long orderId : inventoryReservationService.findExpiredOrderIds(EXPIRY_BATCH_SIZE)) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> expireOrder(orderId));
+            } catch (Exception e) {
+                System.err.println("Error expiring stock reservation of order " + orderId + ": " + e.getMessage());
             }
         }
-        return null;
     }
 
-    // Get sequential order ID for supplier (1, 2, 3, etc. based on orders received)
-    public Integer getSequentialOrderIdForSupplier(Order order, User supplier) {
-        List<Order> supplierOrders = orderRepository.findBySupplier(supplier);
-        supplierOrders.sort((o1, o2) -> o1.getCreatedAt().compareTo(o2.getCreatedAt()));
+    private void expireOrder(Long orderId) {
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if (order == null || order.getStatus() == Order.Status.CANCELLED) {
+            // Checkout rolled back or already cancelled
+            inventoryReservationService.release(orderId);
+            return;
+        }
+        if (order.getStatus() != Order.Status.PENDING
+                || order.getPaymentStatus() == Order.PaymentStatus.PAID
+                || order.getPaymentMethod() == Order.PaymentMethod.CASH_ON_DELIVERY) {
+            inventoryReservationService.confirm(orderId);
+            return;
+        }
+        orderStateMachine.cancel(order, Order.PaymentStatus.FAILED, "Dibatalkan (batas waktu pembayaran habis)");
+    }
 
-        for (int i = 0; i < supplierOrders.size(); i++) {
-            if (supplierOrders.get(i).getId().equals(order.getId())) {
-                return i + 1; // Start from 1
-            }
+    private void evictAnalytics(Order order) {
+        analyticsCacheService.evictSupplier(order.getSupplier().getId());
+        analyticsCacheService.evictBuyer(order.getBuyer().getId());
+    }
+
+    // Buyer and supplier order numbers, taken in the checkout's transaction; the seed covers orders
+    // numbered before the counters existed. Supplier counters are locked in id order, so two
+    // checkouts sharing suppliers cannot deadlock on them.
+    private void assignSequences(User buyer, List<Order> orders) {
+        int buyerSequence = sequenceAllocator.nextInTransaction(SequenceAllocator.BUYER_ORDER, buyer.getId(), orders.size(),
+                () -> Math.max(valueOrZero(orderRepository.findMaxBuyerSequence(buyer)), orderRepository.countByBuyer(buyer)) + 1);
+        for (Order order : orders) {
+            order.setBuyerSequence(buyerSequence++);
+        }
+        List<Order> bySupplier = new ArrayList<>(orders);
+        bySupplier.sort(java.util.Comparator.comparing(order -> order.getSupplier().getId()));
+        for (Order order : bySupplier) {
+            User supplier = order.getSupplier();
+            order.setSupplierSequence(sequenceAllocator.nextInTransaction(SequenceAllocator.SUPPLIER_ORDER, supplier.getId(), 1,
+                    () -> Math.max(valueOrZero(orderRepository.findMaxSupplierSequence(supplier)), orderRepository.countBySupplier(supplier)) + 1));
         }
-        return null;
+    }
+
+    private static long valueOrZero(Integer value) {
+        return value != null ? value : 0L;
     }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.Order;
+import savora.com.savora.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The only writer of an order's status and payment status. Each change is checked against
+ * Order.Status.canTransitionTo and written with one conditional UPDATE that only matches if
+ * the order is still in the state the caller read, so two concurrent changes cannot both
+ * win. Reserved stock is settled in the same transaction, so a cancelled order always gets
+ * its stock back. Other side effects (notifications, emails, analytics) are not run here;
+ * every change is published as an OrderStatusChangedEvent, and the subscribers write theirs
+ * in the same transaction.
+ *
+ * transitionAll moves many orders in one UPDATE; the caller must hold row locks on them
+ * (see OrderRepository.findBySupplierAndIdIn) so their current status cannot change under it.
+ */
+@Service
+public class OrderStateMachine {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderEventDispatcher orderEventDispatcher;
+
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
+    @Transactional
+    public void transition(Order order, Order.Status status) {
+        apply(order, status, order.getPaymentStatus(), order.getTrackingNumber(), order.getCourierName(), null);
+    }
+
+    // Moves every order that may take the status; returns the ids that were changed
+    @Transactional
+    public List<Long> transitionAll(List<Order> lockedOrders, Order.Status status) {
+        List<Long> ids = new ArrayList<>();
+        List<OrderStatusChangedEvent> events = new ArrayList<>();
+        for (Order order : lockedOrders) {
+            if (order.getStatus().canTransitionTo(status)) {
+                ids.add(order.getId());
+                events.add(new OrderStatusChangedEvent(order, status, order.getPaymentStatus(), order.getTrackingNumber(), null));
+            }
+        }
+        if (!ids.isEmpty()) {
+            orderRepository.updateStatusByIds(ids, status, LocalDateTime.now());
+            inventoryReservationService.settle(events);
+            orderEventDispatcher.publishAll(events);
+        }
+        return ids;
+    }
+
+    @Transactional
+    public void cancel(Order order, Order.PaymentStatus paymentStatus, String reason) {
+        apply(order, Order.Status.CANCELLED, paymentStatus, order.getTrackingNumber(), order.getCourierName(), reason);
+    }
+
+    @Transactional
+    public void ship(Order order, String trackingNumber, String courierName) {
+        apply(order, Order.Status.SHIPPED, order.getPaymentStatus(), trackingNumber, courierName, null);
+    }
+
+    // Buyer-confirmed payment: marks the order paid and, if still pending, confirmed
+    @Transactional
+    public void confirmPayment(Order order) {
+        Order.Status status = order.getStatus() == Order.Status.PENDING ? Order.Status.CONFIRMED : order.getStatus();
+        apply(order, status, Order.PaymentStatus.PAID, order.getTrackingNumber(), order.getCourierName(), null);
+    }
+
+    @Transactional
+    public void changePaymentStatus(Order order, Order.PaymentStatus paymentStatus) {
+        apply(order, order.getStatus(), paymentStatus, order.getTrackingNumber(), order.getCourierName(), null);
+    }
+
+    // The order entity is left untouched; it describes the state before the change
+    private void apply(Order order, Order.Status status, Order.PaymentStatus paymentStatus,
+                       String trackingNumber, String courierName, String note) {
+        Order.Status currentStatus = order.getStatus();
+        if (currentStatus != status && !currentStatus.canTransitionTo(status)) {
+            throw new RuntimeException("Status pesanan tidak dapat diubah dari " + currentStatus + " ke " + status);
+        }
+        boolean shippingChanged = !java.util.Objects.equals(trackingNumber, order.getTrackingNumber())
+                || !java.util.Objects.equals(courierName, order.getCourierName());
+        if (currentStatus == status && order.getPaymentStatus() == paymentStatus && !shippingChanged) {
+            return;
+        }
+
+        int updated = orderRepository.applyTransition(order.getId(), currentStatus, order.getPaymentStatus(),
+                status, paymentStatus, trackingNumber, courierName, LocalDateTime.now());
+        if (updated == 0) {
+            throw new RuntimeException("Pesanan sudah diubah oleh proses lain, silakan muat ulang halaman");
+        }
+        OrderStatusChangedEvent event = new OrderStatusChangedEvent(order, status, paymentStatus, trackingNumber, note);
+        inventoryReservationService.settle(List.of(event));
+        orderEventDispatcher.publish(event);
+    }
+}
@@ -0,0 +1,57 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.Order;
+import savora.com.savora.model.User;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Published by OrderStateMachine, inside its transaction, for every status or payment change of an order
+public class OrderStatusChangedEvent {
+    private final Long orderId;
+    private final User buyer;
+    private final User supplier;
+    private final LocalDateTime orderCreatedAt;
+    private final BigDecimal totalAmount;
+    private final Order.PaymentMethod paymentMethod;
+    private final Order.Status fromStatus;
+    private final Order.Status toStatus;
+    private final Order.PaymentStatus fromPaymentStatus;
+    private final Order.PaymentStatus toPaymentStatus;
+    private final String trackingNumber;
+    private final String note;
+
+    OrderStatusChangedEvent(Order order, Order.Status toStatus, Order.PaymentStatus toPaymentStatus,
+                            String trackingNumber, String note) {
+        this.orderId = order.getId();
+        this.buyer = order.getBuyer();
+        this.supplier = order.getSupplier();
+        this.orderCreatedAt = order.getCreatedAt();
+        this.totalAmount = order.getTotalAmount();
+        this.paymentMethod = order.getPaymentMethod();
+        this.fromStatus = order.getStatus();
+        this.toStatus = toStatus;
+        this.fromPaymentStatus = order.getPaymentStatus();
+        this.toPaymentStatus = toPaymentStatus;
+        this.trackingNumber = trackingNumber;
+        this.note = note;
+    }
+
+    public Long getOrderId() { return orderId; }
+    public User getBuyer() { return buyer; }
+    public User getSupplier() { return supplier; }
+    public LocalDateTime getOrderCreatedAt() { return orderCreatedAt; }
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public Order.PaymentMethod getPaymentMethod() { return paymentMethod; }
+    public Order.Status getFromStatus() { return fromStatus; }
+    public Order.Status getToStatus() { return toStatus; }
+    public Order.PaymentStatus getFromPaymentStatus() { return fromPaymentStatus; }
+    public Order.PaymentStatus getToPaymentStatus() { return toPaymentStatus; }
+    public String getTrackingNumber() { return trackingNumber; }
+    // Optional human-readable reason, e.g. why the order was cancelled
+    public String getNote() { return note; }
+
+    public boolean isStatusChanged() { return fromStatus != toStatus; }
+    public boolean isPaymentChanged() { return fromPaymentStatus != toPaymentStatus; }
+    // True when this change is the one that marked the order paid
+    public boolean isPaymentReceived() { return isPaymentChanged() && toPaymentStatus == Order.PaymentStatus.PAID; }
+}
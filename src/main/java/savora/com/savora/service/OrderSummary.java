@@ -0,0 +1,44 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.Order;
+import savora.com.savora.repository.OrderRepository;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One row of a buyer's or supplier's order list: order header, first product line and line count
+public class OrderSummary {
+    private final OrderRepository.OrderRow row;
+    private OrderRepository.OrderItemRow firstItem;
+    private int itemCount;
+
+    public OrderSummary(OrderRepository.OrderRow row) {
+        this.row = row;
+    }
+
+    void addItem(OrderRepository.OrderItemRow item) {
+        if (firstItem == null) {
+            firstItem = item;
+        }
+        itemCount++;
+    }
+
+    public Long getId() { return row.getId(); }
+    public Integer getBuyerSequence() { return row.getBuyerSequence(); }
+    public Integer getSupplierSequence() { return row.getSupplierSequence(); }
+    public Order.Status getStatus() { return row.getStatus(); }
+    public Order.PaymentStatus getPaymentStatus() { return row.getPaymentStatus(); }
+    public BigDecimal getTotalAmount() { return row.getTotalAmount(); }
+    public LocalDateTime getCreatedAt() { return row.getCreatedAt(); }
+    public String getShippingAddress() { return row.getShippingAddress(); }
+    public String getBuyerName() { return row.getBuyerName(); }
+    public String getSupplierName() { return row.getSupplierName(); }
+
+    public Long getFirstProductId() { return firstItem != null ? firstItem.getProductId() : null; }
+    public String getFirstProductName() { return firstItem != null ? firstItem.getProductName() : null; }
+    public Integer getFirstSupplierProductId() { return firstItem != null ? firstItem.getSupplierProductId() : null; }
+    public String getFirstProductUnit() { return firstItem != null ? firstItem.getUnit() : null; }
+    public Integer getFirstItemQuantity() { return firstItem != null ? firstItem.getQuantity() : null; }
+    public int getItemCount() { return itemCount; }
+    // Lines beyond the first, shown as "+N produk lainnya"
+    public int getOtherItemCount() { return Math.max(0, itemCount - 1); }
+}
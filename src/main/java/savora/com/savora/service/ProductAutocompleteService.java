@@ -0,0 +1,379 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.Product;
+import savora.com.savora.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory autocomplete over product names. Names are indexed in a trie at every word
+ * start, and each node keeps its most popular completions (by units sold), so a lookup is
+ * one walk down the trie. Reads are lock-free: the completion lists are immutable and carry
+ * the weights as of their last refresh, so readers never see a weight change mid-sort.
+ * Writes come from ProductChangedEvent and ProductSalesRecordedEvent; product changes
+ * arriving while the startup build runs are held and applied once it finishes, so the build
+ * cannot overwrite them with an older copy.
+ */
+@Service
+public class ProductAutocompleteService {
+
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final int MAX_KEY_LENGTH = 30;
+    private static final int MIN_FUZZY_LENGTH = 3;
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private static final Comparator<Ranked> BY_POPULARITY = Comparator
+            .comparingLong((Ranked r) -> r.weight).reversed()
+            .thenComparing(r -> r.suggestion.key);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final Node root = new Node();
+    private final Map<String, Suggestion> suggestions = new HashMap<>();
+    private final Map<Long, String> keyByProduct = new HashMap<>();
+    private final Map<String, CompletableFuture<List<String>>> inFlight = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    // Product changes held while the startup build runs, guarded by pendingChanges
+    private final Map<Long, ProductChangedEvent> pendingChanges = new LinkedHashMap<>();
+    private boolean building;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        synchronized (pendingChanges) {
+            building = true;
+        }
+        Page<Product> batch;
+        int page = 0;
+        do {
+            batch = productRepository.findAll(PageRequest.of(page++, REBUILD_BATCH_SIZE, Sort.by("id")));
+            batch.forEach(this::index);
+        } while (batch.hasNext());
+
+        // Applied before building is cleared, so a later change cannot be overtaken by a held one
+        synchronized (pendingChanges) {
+            pendingChanges.values().forEach(this::apply);
+            pendingChanges.clear();
+            building = false;
+        }
+        ready = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (pendingChanges) {
+            if (building) {
+                pendingChanges.put(event.getProductId(), event);
+                return;
+            }
+        }
+        apply(event);
+    }
+
+    private void apply(ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getProductId());
+        } else {
+            index(event.getProduct());
+        }
+    }
+
+    @EventListener
+    public void onSalesRecorded(ProductSalesRecordedEvent event) {
+        recordSales(event.getQuantities());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Identical prefixes requested while one is being computed share that computation
+    public List<String> suggest(String query, int limit) {
+        String prefix = normalizeKey(query);
+        int size = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+
+        String requestKey = size + ":" + prefix;
+        CompletableFuture<List<String>> pending = new CompletableFuture<>();
+        CompletableFuture<List<String>> existing = inFlight.putIfAbsent(requestKey, pending);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            List<String> result = lookup(prefix, size);
+            pending.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(requestKey, pending);
+        }
+    }
+
+    public synchronized void index(Product product) {
+        String key = normalizeKey(product.getName());
+        String previousKey = keyByProduct.get(product.getId());
+        if (previousKey != null && !previousKey.equals(key)) {
+            detach(product.getId(), previousKey);
+        }
+        if (key.isEmpty()) {
+            return;
+        }
+
+        Suggestion suggestion = suggestions.get(key);
+        boolean isNew = suggestion == null;
+        if (isNew) {
+            suggestion = new Suggestion(key, product.getName().trim());
+            suggestions.put(key, suggestion);
+        }
+        suggestion.salesByProduct.put(product.getId(), product.getSalesCount() != null ? product.getSalesCount() : 0);
+        suggestion.updateWeight();
+        keyByProduct.put(product.getId(), key);
+
+        for (String indexKey : indexKeys(key)) {
+            if (isNew) {
+                Node node = root;
+                for (char c : indexKey.toCharArray()) {
+                    node = node.children.computeIfAbsent(c, ch -> new Node());
+                }
+                node.terminals.add(suggestion);
+            }
+            refreshPath(indexKey);
+        }
+    }
+
+    // Adds units sold to the products' suggestions and re-ranks each affected path once
+    public synchronized void recordSales(Map<Long, Integer> quantities) {
+        Set<String> changedKeys = new LinkedHashSet<>();
+        quantities.forEach((productId, quantity) -> {
+            String key = keyByProduct.get(productId);
+            Suggestion suggestion = key != null ? suggestions.get(key) : null;
+            if (suggestion != null) {
+                suggestion.salesByProduct.merge(productId, quantity, Integer::sum);
+                suggestion.updateWeight();
+                changedKeys.add(key);
+            }
+        });
+        for (String key : changedKeys) {
+            indexKeys(key).forEach(this::refreshPath);
+        }
+    }
+
+    public synchronized void remove(Long productId) {
+        String key = keyByProduct.get(productId);
+        if (key != null) {
+            detach(productId, key);
+        }
+    }
+
+    private void detach(Long productId, String key) {
+        keyByProduct.remove(productId);
+        Suggestion suggestion = suggestions.get(key);
+        if (suggestion == null) {
+            return;
+        }
+        suggestion.salesByProduct.remove(productId);
+        suggestion.updateWeight();
+        boolean gone = suggestion.salesByProduct.isEmpty();
+        if (gone) {
+            suggestions.remove(key);
+        }
+        for (String indexKey : indexKeys(key)) {
+            if (gone) {
+                Node node = walk(indexKey);
+                if (node != null) {
+                    node.terminals.remove(suggestion);
+                }
+            }
+            refreshPath(indexKey);
+        }
+    }
+
+    // Recomputes the top completions bottom-up along one key, pruning nodes left empty
+    private void refreshPath(String indexKey) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        for (char c : indexKey.toCharArray()) {
+            node = node.children.get(c);
+            if (node == null) {
+                break;
+            }
+            path.add(node);
+        }
+        for (int depth = path.size() - 1; depth >= 0; depth--) {
+            Node current = path.get(depth);
+            if (depth > 0 && current.children.isEmpty() && current.terminals.isEmpty()) {
+                path.get(depth - 1).children.remove(indexKey.charAt(depth - 1));
+                continue;
+            }
+            Set<Suggestion> seen = new HashSet<>();
+            current.top = Stream.concat(current.terminals.stream().map(Ranked::new),
+                            current.children.values().stream().flatMap(child -> child.top.stream()))
+                    .sorted(BY_POPULARITY)
+                    .filter(ranked -> seen.add(ranked.suggestion))
+                    .limit(MAX_SUGGESTIONS)
+                    .collect(Collectors.toUnmodifiableList());
+        }
+    }
+
+    private List<String> lookup(String prefix, int limit) {
+        String trieKey = prefix.length() > MAX_KEY_LENGTH ? prefix.substring(0, MAX_KEY_LENGTH) : prefix;
+        Set<Suggestion> results = new LinkedHashSet<>();
+        Node node = walk(trieKey);
+        if (node != null) {
+            for (Ranked ranked : node.top) {
+                if (results.size() >= limit) {
+                    break;
+                }
+                // Keys are truncated in the trie, so long queries are checked against the full name
+                if (trieKey.length() == prefix.length() || ranked.suggestion.key.contains(prefix)) {
+                    results.add(ranked.suggestion);
+                }
+            }
+        }
+
+        // Top up with completions one typo away from what was typed; sorted on the snapshot
+        // weights in the completion lists, which writers never change
+        if (results.size() < limit && trieKey.length() >= MIN_FUZZY_LENGTH) {
+            Set<Node> fuzzyNodes = new HashSet<>();
+            collectFuzzy(root, trieKey, 0, 1, fuzzyNodes);
+            List<Ranked> candidates = fuzzyNodes.stream()
+                    .flatMap(fuzzy -> fuzzy.top.stream())
+                    .filter(ranked -> !results.contains(ranked.suggestion))
+                    .sorted(BY_POPULARITY)
+                    .collect(Collectors.toList());
+            for (Ranked ranked : candidates) {
+                if (results.size() >= limit) {
+                    break;
+                }
+                results.add(ranked.suggestion);
+            }
+        }
+
+        return results.stream().map(suggestion -> suggestion.displayName).collect(Collectors.toList());
+    }
+
+    // Collects nodes reachable by consuming the prefix with at most `edits` single-character edits
+    private void collectFuzzy(Node node, String prefix, int position, int edits, Set<Node> out) {
+        if (position == prefix.length()) {
+            out.add(node);
+            return;
+        }
+        char c = prefix.charAt(position);
+        Node exact = node.children.get(c);
+        if (exact != null) {
+            collectFuzzy(exact, prefix, position + 1, edits, out);
+        }
+        if (edits == 0) {
+            return;
+        }
+        // Extra character typed
+        collectFuzzy(node, prefix, position + 1, edits - 1, out);
+        for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+            if (child.getKey() != c) {
+                // Wrong character typed
+                collectFuzzy(child.getValue(), prefix, position + 1, edits - 1, out);
+            }
+            // Character missed
+            collectFuzzy(child.getValue(), prefix, position, edits - 1, out);
+        }
+        // Two neighbouring characters swapped
+        if (position + 1 < prefix.length()) {
+            Node first = node.children.get(prefix.charAt(position + 1));
+            Node second = first != null ? first.children.get(c) : null;
+            if (second != null) {
+                collectFuzzy(second, prefix, position + 2, edits - 1, out);
+            }
+        }
+    }
+
+    private Node walk(String key) {
+        Node node = root;
+        for (char c : key.toCharArray()) {
+            node = node.children.get(c);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    // The name from each word start, so "bubuk" also completes "kopi bubuk robusta"
+    private static List<String> indexKeys(String key) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < key.length(); i++) {
+            if (i == 0 || key.charAt(i - 1) == ' ') {
+                String suffix = key.substring(i);
+                keys.add(suffix.length() > MAX_KEY_LENGTH ? suffix.substring(0, MAX_KEY_LENGTH) : suffix);
+            }
+        }
+        return keys;
+    }
+
+    private static String normalizeKey(String text) {
+        return IndonesianTextAnalyzer.normalize(text).replaceAll("[^a-z0-9]+", " ").trim();
+    }
+
+    private static final class Node {
+        final Map<Character, Node> children = new ConcurrentHashMap<>();
+        final Set<Suggestion> terminals = new HashSet<>();
+        volatile List<Ranked> top = List.of();
+    }
+
+    // A suggestion with its weight when a completion list was computed
+    private static final class Ranked {
+        final Suggestion suggestion;
+        final long weight;
+
+        Ranked(Suggestion suggestion) {
+            this.suggestion = suggestion;
+            this.weight = suggestion.weight;
+        }
+    }
+
+    // One distinct product name; weight is the units sold across products sharing it
+    private static final class Suggestion {
+        final String key;
+        final String displayName;
+        final Map<Long, Integer> salesByProduct = new HashMap<>();
+        volatile long weight;
+
+        Suggestion(String key, String displayName) {
+            this.key = key;
+            this.displayName = displayName;
+        }
+
+        void updateWeight() {
+            long total = 0;
+            for (int sales : salesByProduct.values()) {
+                total += sales;
+            }
+            weight = total;
+        }
+    }
+}
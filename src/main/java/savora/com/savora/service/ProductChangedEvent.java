@@ -0,0 +1,26 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.Product;
+
+// Published by ProductService when a product is saved or deleted; listeners run after commit
+public class ProductChangedEvent {
+    private final Long productId;
+    private final Product product;
+
+    private ProductChangedEvent(Long productId, Product product) {
+        this.productId = productId;
+        this.product = product;
+    }
+
+    public static ProductChangedEvent saved(Product product) {
+        return new ProductChangedEvent(product.getId(), product);
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(productId, null);
+    }
+
+    public Long getProductId() { return productId; }
+    public Product getProduct() { return product; }
+    public boolean isDeleted() { return product == null; }
+}
@@ -0,0 +1,79 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.Product;
+import savora.com.savora.repository.ProductSortKey;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for product listings. Database listings continue after the
+ * (sort value, id) of the last product returned; keyword searches, answered from the
+ * in-memory index, continue from an offset into the ranked hits.
+ */
+public final class ProductCursor {
+
+    private static final String KEYSET = "k";
+    private static final String OFFSET = "o";
+
+    private final ProductSortKey sortKey;
+    private final boolean ascending;
+    private final String lastValue;
+    private final Long lastId;
+    private final int offset;
+
+    private ProductCursor(ProductSortKey sortKey, boolean ascending, String lastValue, Long lastId, int offset) {
+        this.sortKey = sortKey;
+        this.ascending = ascending;
+        this.lastValue = lastValue;
+        this.lastId = lastId;
+        this.offset = offset;
+    }
+
+    public static ProductCursor after(Product last, ProductSortKey sortKey, boolean ascending) {
+        return new ProductCursor(sortKey, ascending, sortKey.format(last), last.getId(), 0);
+    }
+
+    public static ProductCursor atOffset(int offset) {
+        return new ProductCursor(null, false, null, null, offset);
+    }
+
+    public boolean isKeyset() {
+        return lastId != null;
+    }
+
+    // A keyset cursor only continues the ordering it was issued for
+    public boolean matches(ProductSortKey sortKey, boolean ascending) {
+        return isKeyset() && this.sortKey == sortKey && this.ascending == ascending;
+    }
+
+    public Comparable<?> getLastValue() { return sortKey.parse(lastValue); }
+    public Long getLastId() { return lastId; }
+    public int getOffset() { return offset; }
+
+    public String encode() {
+        String raw = isKeyset()
+                ? String.join("|", KEYSET, sortKey.name(), ascending ? "a" : "d", lastId.toString(), lastValue)
+                : OFFSET + "|" + offset;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 5);
+            if (parts.length == 2 && OFFSET.equals(parts[0])) {
+                return atOffset(Integer.parseInt(parts[1]));
+            }
+            if (parts.length == 5 && KEYSET.equals(parts[0])) {
+                ProductSortKey sortKey = ProductSortKey.valueOf(parts[1]);
+                ProductCursor cursor = new ProductCursor(sortKey, "a".equals(parts[2]), parts[4], Long.valueOf(parts[3]), 0);
+                cursor.getLastValue(); // reject values that do not parse for the sort key
+                return cursor;
+            }
+        } catch (RuntimeException e) {
+            // Fall through to the error below
+        }
+        throw new IllegalArgumentException("Cursor tidak valid");
+    }
+}
@@ -0,0 +1,149 @@
+package savora.com.savora.service;
+
+import savora.com.savora.repository.ProductSortKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps every sort/filter combination the product listings accept onto a composite index on
+ * products, so catalog pages are read in index order instead of being filesorted.
+ * Sort parameters outside the whitelist are rewritten to the default (newest first). When a
+ * listing is filtered by both category and supplier, the supplier index drives the scan and
+ * the category is checked on the rows it returns. Price ranges are index ranges when sorting
+ * by price and row filters otherwise.
+ *
+ * The indexes are declared on Product for schema generation; verifyIndexes() reports any
+ * that are missing from the live schema together with the DDL to create them.
+ */
+@Service
+public class ProductQueryPlanner {
+
+    public enum Scope {
+        ALL, CATEGORY, SUPPLIER
+    }
+
+    private final Map<Scope, Map<ProductSortKey, IndexSpec>> indexes = new EnumMap<>(Scope.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ProductQueryPlanner() {
+        register(Scope.ALL, ProductSortKey.ID, "PRIMARY", "id");
+        register(Scope.ALL, ProductSortKey.PRICE, "idx_products_price", "price, id");
+        register(Scope.ALL, ProductSortKey.CREATED_AT, "idx_products_created", "created_at, id");
+        register(Scope.ALL, ProductSortKey.NAME, "idx_products_name", "name, id");
+        register(Scope.CATEGORY, ProductSortKey.ID, "idx_products_category", "category_id, id");
+        register(Scope.CATEGORY, ProductSortKey.PRICE, "idx_products_category_price", "category_id, price, id");
+        register(Scope.CATEGORY, ProductSortKey.CREATED_AT, "idx_products_category_created", "category_id, created_at, id");
+        register(Scope.CATEGORY, ProductSortKey.NAME, "idx_products_category_name", "category_id, name, id");
+        register(Scope.SUPPLIER, ProductSortKey.ID, "idx_products_supplier", "supplier_id, id");
+        register(Scope.SUPPLIER, ProductSortKey.PRICE, "idx_products_supplier_price", "supplier_id, price, id");
+        register(Scope.SUPPLIER, ProductSortKey.CREATED_AT, "idx_products_supplier_created", "supplier_id, created_at, id");
+        register(Scope.SUPPLIER, ProductSortKey.NAME, "idx_products_supplier_name", "supplier_id, name, id");
+    }
+
+    public ProductQueryPlan plan(String sortBy, String sortDir, Long categoryId, Long supplierId) {
+        ProductSortKey sortKey = ProductSortKey.fromParameter(sortBy);
+        boolean rewritten = sortBy != null && !sortKey.getAttribute().equals(sortBy);
+        // A rewritten sort also takes the default direction
+        boolean ascending = !rewritten && "asc".equalsIgnoreCase(sortDir);
+        Scope scope = supplierId != null ? Scope.SUPPLIER : categoryId != null ? Scope.CATEGORY : Scope.ALL;
+        return new ProductQueryPlan(sortKey, ascending, scope, indexes.get(scope).get(sortKey).name, rewritten);
+    }
+
+    // CREATE INDEX statements for every index the planner relies on
+    public List<String> indexDdl() {
+        List<String> statements = new ArrayList<>();
+        for (Map<ProductSortKey, IndexSpec> byScope : indexes.values()) {
+            for (IndexSpec index : byScope.values()) {
+                if (!"PRIMARY".equals(index.name)) {
+                    statements.add(index.ddl());
+                }
+            }
+        }
+        return statements;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyIndexes() {
+        try {
+            @SuppressWarnings("unchecked")
+            List<Object> existing = entityManager.createNativeQuery(
+                    "SELECT DISTINCT INDEX_NAME FROM information_schema.STATISTICS " +
+                    "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'products'").getResultList();
+            Set<String> names = new HashSet<>();
+            existing.forEach(name -> names.add(String.valueOf(name)));
+            for (Map<ProductSortKey, IndexSpec> byScope : indexes.values()) {
+                for (IndexSpec index : byScope.values()) {
+                    if (!names.contains(index.name)) {
+                        System.err.println("Missing product index " + index.name + ", create it with: " + index.ddl());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Could not verify product indexes: " + e.getMessage());
+        }
+    }
+
+    private void register(Scope scope, ProductSortKey sortKey, String name, String columns) {
+        indexes.computeIfAbsent(scope, s -> new EnumMap<>(ProductSortKey.class)).put(sortKey, new IndexSpec(name, columns));
+    }
+
+    private static final class IndexSpec {
+        final String name;
+        final String columns;
+
+        IndexSpec(String name, String columns) {
+            this.name = name;
+            this.columns = columns;
+        }
+
+        String ddl() {
+            return "CREATE INDEX " + name + " ON products (" + columns + ")";
+        }
+    }
+
+    // Effective ordering for one listing query and the index expected to serve it
+    public static final class ProductQueryPlan {
+        private final ProductSortKey sortKey;
+        private final boolean ascending;
+        private final Scope scope;
+        private final String indexName;
+        private final boolean rewritten;
+
+        ProductQueryPlan(ProductSortKey sortKey, boolean ascending, Scope scope, String indexName, boolean rewritten) {
+            this.sortKey = sortKey;
+            this.ascending = ascending;
+            this.scope = scope;
+            this.indexName = indexName;
+            this.rewritten = rewritten;
+        }
+
+        public ProductSortKey getSortKey() { return sortKey; }
+        public boolean isAscending() { return ascending; }
+        public Scope getScope() { return scope; }
+        public String getIndexName() { return indexName; }
+        // True when the requested sort was not supported and the default was used instead
+        public boolean isRewritten() { return rewritten; }
+        public String getSortBy() { return sortKey.getAttribute(); }
+        public String getSortDir() { return ascending ? "asc" : "desc"; }
+
+        public Sort toSort() {
+            Sort.Direction direction = ascending ? Sort.Direction.ASC : Sort.Direction.DESC;
+            return sortKey == ProductSortKey.ID
+                    ? Sort.by(direction, "id")
+                    : Sort.by(direction, sortKey.getAttribute()).and(Sort.by(direction, "id"));
+        }
+    }
+}
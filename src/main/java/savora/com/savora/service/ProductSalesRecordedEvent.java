@@ -0,0 +1,15 @@
+package savora.com.savora.service;
+
+import java.util.Map;
+
+// Published by ProductService once units sold have been added to Product.salesCount
+public class ProductSalesRecordedEvent {
+    private final Map<Long, Integer> quantities;
+
+    public ProductSalesRecordedEvent(Map<Long, Integer> quantities) {
+        this.quantities = Map.copyOf(quantities);
+    }
+
+    // Units added per product ID
+    public Map<Long, Integer> getQuantities() { return quantities; }
+}
@@ -0,0 +1,22 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Keyword search over products. Implementations return matching product IDs in result
+ * order; callers load the entities. An unsorted Pageable means relevance order.
+ */
+public interface ProductSearchEngine {
+
+    // False until the initial index build has finished; callers fall back to the database
+    boolean isReady();
+
+    void index(Product product);
+
+    void remove(Long productId);
+
+    Page<Long> search(String keyword, Long categoryId, Double minPrice, Double maxPrice,
+                      Long supplierId, Pageable pageable);
+}
@@ -1,15 +1,25 @@
 package savora.com.savora.service;
 
+import savora.com.savora.model.OrderItem;
 import savora.com.savora.model.Product;
 import savora.com.savora.model.User;
 import savora.com.savora.repository.ProductRepository;
+import savora.com.savora.repository.ProductSortKey;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-import java.util.Comparator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -24,22 +34,44 @@ public class ProductService {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private AnalyticsCacheService analyticsCacheService;
+
+    @Autowired
+    private ProductSearchEngine productSearchEngine;
+
+    @Autowired
+    private ProductAutocompleteService productAutocompleteService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SequenceAllocator sequenceAllocator;
+
+    @Autowired
+    private ProductQueryPlanner productQueryPlanner;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    public void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
     public Product saveProduct(Product product) {
-        // Ensure supplierProductId is set for existing products that don't have it
-        if (product.getId() != null && product.getSupplierProductId() == null) {
-            // For existing products without supplierProductId, assign based on creation order
-            List<Product> supplierProducts = productRepository.findBySupplierOrderByIdAsc(product.getSupplier());
-            int sequence = 1;
-            for (Product p : supplierProducts) {
-                if (p.getId().equals(product.getId())) {
-                    break;
-                }
-                sequence++;
-            }
-            product.setSupplierProductId(sequence);
+        // New products get the supplier's next sequential product ID
+        if (product.getId() == null && product.getSupplierProductId() == null) {
+            product.setSupplierProductId(getNextSupplierProductId(product.getSupplier()));
         }
 
         Product savedProduct = productRepository.save(product);
+        analyticsCacheService.evictSupplier(savedProduct.getSupplier().getId());
+        eventPublisher.publishEvent(ProductChangedEvent.saved(savedProduct));
 
         // Send notification to supplier about new product
         if (product.getId() == null) { // New product
@@ -49,12 +81,47 @@ public class ProductService {
         return savedProduct;
     }
 
+    // Adds sold units to the products' running totals in one batch, without reloading them.
+    // Inside a transaction this waits for the commit and runs on its own, so a checkout does
+    // not hold the hot product rows locked while it finishes.
+    public void recordSales(List<OrderItem> items) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (OrderItem item : items) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    incrementSalesCounts(quantities);
+                }
+            });
+        } else {
+            incrementSalesCounts(quantities);
+        }
+    }
+
+    // Best effort: a lost increment only skews popularity ordering
+    private void incrementSalesCounts(Map<Long, Integer> quantities) {
+        try {
+            requiresNew.executeWithoutResult(status -> productRepository.incrementSalesCounts(quantities));
+        } catch (Exception e) {
+            System.err.println("Error recording sales of products " + quantities.keySet() + ": " + e.getMessage());
+            return;
+        }
+        eventPublisher.publishEvent(new ProductSalesRecordedEvent(quantities));
+    }
+
+    public ProductRepository.RatingHistogram getRatingHistogram(User supplier) {
+        return productRepository.sumRatingHistogramBySupplier(supplier);
+    }
+
     public List<Product> getAllProducts() {
         return productRepository.findAll();
     }
 
     public Page<Product> getAllProductsPaged(int page, int size, String sortBy, String sortDir) {
-        Sort sort = sortDir.equalsIgnoreCase("asc") ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
+        Sort sort = productQueryPlanner.plan(sortBy, sortDir, null, null).toSort();
         Pageable pageable = PageRequest.of(page, size, sort);
         return productRepository.findAll(pageable);
     }
@@ -80,6 +147,10 @@ public class ProductService {
     }
 
     public List<Product> searchProducts(String keyword) {
+        if (productSearchEngine.isReady()) {
+            Page<Long> hits = productSearchEngine.search(keyword, null, null, null, null, Pageable.unpaged());
+            return loadInOrder(hits.getContent());
+        }
         return productRepository.searchByKeyword(keyword);
     }
 
@@ -87,11 +158,73 @@ public class ProductService {
     public Page<Product> searchProductsWithFilters(String keyword, Long categoryId, Double minPrice,
                                                   Double maxPrice, Long supplierId, int page, int size,
                                                   String sortBy, String sortDir) {
-        Sort sort = sortDir.equalsIgnoreCase("asc") ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
+        ProductQueryPlanner.ProductQueryPlan plan = productQueryPlanner.plan(sortBy, sortDir, categoryId, supplierId);
+        Sort sort = plan.toSort();
+        if (keyword != null && !keyword.trim().isEmpty() && productSearchEngine.isReady()) {
+            // The default sort (newest first) becomes relevance order for keyword searches
+            Sort searchSort = plan.getSortKey() == ProductSortKey.ID ? Sort.unsorted() : sort;
+            Page<Long> hits = productSearchEngine.search(keyword, categoryId, minPrice, maxPrice, supplierId,
+                    PageRequest.of(page, size, searchSort));
+            return new PageImpl<>(loadInOrder(hits.getContent()), hits.getPageable(), hits.getTotalElements());
+        }
         Pageable pageable = PageRequest.of(page, size, sort);
         return productRepository.findProductsWithFilters(keyword, categoryId, minPrice, maxPrice, supplierId, pageable);
     }
 
+    // Cursor-paginated listing: database listings seek past the last (sort value, id),
+    // keyword searches page through the search engine's ranked hits
+    public ProductSlice getProductSlice(String keyword, Long categoryId, Double minPrice, Double maxPrice,
+                                        Long supplierId, String sortBy, String sortDir, String cursorToken,
+                                        int size, boolean includeTotal) {
+        ProductQueryPlanner.ProductQueryPlan plan = productQueryPlanner.plan(sortBy, sortDir, categoryId, supplierId);
+        ProductSortKey sortKey = plan.getSortKey();
+        boolean ascending = plan.isAscending();
+        ProductCursor cursor = cursorToken != null && !cursorToken.isBlank() ? ProductCursor.decode(cursorToken) : null;
+
+        if (keyword != null && !keyword.trim().isEmpty()) {
+            if (cursor != null && cursor.isKeyset()) {
+                throw new IllegalArgumentException("Cursor tidak valid");
+            }
+            int offset = cursor != null ? cursor.getOffset() : 0;
+            Page<Product> page = searchProductsWithFilters(keyword, categoryId, minPrice, maxPrice, supplierId,
+                    offset / size, size, sortKey.getAttribute(), ascending ? "asc" : "desc");
+            String next = page.hasNext() ? ProductCursor.atOffset((page.getNumber() + 1) * size).encode() : null;
+            return new ProductSlice(page.getContent(), next, includeTotal ? page.getTotalElements() : null, false);
+        }
+
+        if (cursor != null && !cursor.matches(sortKey, ascending)) {
+            throw new IllegalArgumentException("Cursor tidak sesuai dengan urutan yang diminta");
+        }
+        // One extra row tells whether another page exists without counting
+        List<Product> rows = productRepository.findSlice(categoryId, minPrice, maxPrice, supplierId, sortKey, ascending,
+                cursor != null ? cursor.getLastValue() : null, cursor != null ? cursor.getLastId() : null, size + 1);
+        boolean hasMore = rows.size() > size;
+        List<Product> products = hasMore ? rows.subList(0, size) : rows;
+        String next = hasMore ? ProductCursor.after(products.get(products.size() - 1), sortKey, ascending).encode() : null;
+
+        Long total = null;
+        boolean approximate = false;
+        if (includeTotal) {
+            if (categoryId == null && minPrice == null && maxPrice == null && supplierId == null) {
+                total = productRepository.estimateTotalCount();
+                approximate = true;
+            } else {
+                total = productRepository.countMatching(categoryId, minPrice, maxPrice, supplierId);
+            }
+        }
+        return new ProductSlice(products, next, total, approximate);
+    }
+
+    // Loads products by ID keeping the order the search engine returned them in
+    private List<Product> loadInOrder(List<Long> ids) {
+        Map<Long, Product> productsById = productRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(Product::getId, p -> p));
+        return ids.stream()
+            .map(productsById::get)
+            .filter(java.util.Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+
     // Get popular products as Page
     public Page<Product> getPopularProductsPaged(int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
@@ -119,39 +252,26 @@ public class ProductService {
     }
 
     public void deleteProduct(Long id) {
+        productRepository.findById(id)
+            .ifPresent(product -> analyticsCacheService.evictSupplier(product.getSupplier().getId()));
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
     }
 
     // Get product name suggestions for autocomplete
     public List<String> getProductNameSuggestions(String query, int limit) {
+        if (productAutocompleteService.isReady()) {
+            return productAutocompleteService.suggest(query, limit);
+        }
         Pageable pageable = PageRequest.of(0, limit);
         return productRepository.findProductNameSuggestionsLimited(query, pageable);
     }
 
     // Get next supplier product ID (sequential per supplier)
     public Integer getNextSupplierProductId(User supplier) {
-        Integer maxId = productRepository.findMaxSupplierProductIdBySupplier(supplier);
-        return maxId != null ? maxId + 1 : 1;
-    }
-
-    // Initialize supplier product IDs for existing products that don't have them
-    public void initializeSupplierProductIds() {
-        List<Product> productsWithoutIds = productRepository.findBySupplierProductIdIsNull();
-        Map<User, List<Product>> productsBySupplier = productsWithoutIds.stream()
-            .collect(Collectors.groupingBy(Product::getSupplier));
-
-        for (Map.Entry<User, List<Product>> entry : productsBySupplier.entrySet()) {
-            User supplier = entry.getKey();
-            List<Product> supplierProducts = entry.getValue();
-
-            // Sort by creation date to maintain order
-            supplierProducts.sort(Comparator.comparing(Product::getCreatedAt));
-
-            int sequence = 1;
-            for (Product product : supplierProducts) {
-                product.setSupplierProductId(sequence++);
-                productRepository.save(product);
-            }
-        }
+        return sequenceAllocator.next(SequenceAllocator.SUPPLIER_PRODUCT, supplier.getId(), () -> {
+            Integer maxId = productRepository.findMaxSupplierProductIdBySupplier(supplier);
+            return maxId != null ? maxId + 1 : 1;
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,26 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.Product;
+import java.util.List;
+
+// One page of a cursor-paginated product listing
+public class ProductSlice {
+    private final List<Product> products;
+    private final String nextCursor;
+    private final Long totalItems;
+    private final boolean totalApproximate;
+
+    public ProductSlice(List<Product> products, String nextCursor, Long totalItems, boolean totalApproximate) {
+        this.products = products;
+        this.nextCursor = nextCursor;
+        this.totalItems = totalItems;
+        this.totalApproximate = totalApproximate;
+    }
+
+    public List<Product> getProducts() { return products; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean isHasMore() { return nextCursor != null; }
+    // Null unless requested; approximate when taken from table statistics
+    public Long getTotalItems() { return totalItems; }
+    public boolean isTotalApproximate() { return totalApproximate; }
+}
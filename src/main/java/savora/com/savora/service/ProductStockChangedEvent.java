@@ -0,0 +1,14 @@
+package savora.com.savora.service;
+
+import java.util.Set;
+
+// Published by InventoryReservationService when reservations take stock off products or return it
+public class ProductStockChangedEvent {
+    private final Set<Long> productIds;
+
+    public ProductStockChangedEvent(Set<Long> productIds) {
+        this.productIds = Set.copyOf(productIds);
+    }
+
+    public Set<Long> getProductIds() { return productIds; }
+}
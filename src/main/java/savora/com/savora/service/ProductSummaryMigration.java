@@ -0,0 +1,85 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.Product;
+import savora.com.savora.repository.OrderRepository;
+import savora.com.savora.repository.ProductRepository;
+import savora.com.savora.repository.ReviewRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recomputes the sales and rating summary columns on Product from order items and reviews,
+ * for rows written before those columns were maintained at write time.
+ */
+@Service
+@Order(2)
+public class ProductSummaryMigration implements StartupMigration {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Override
+    public String getName() {
+        return "product-summary-backfill";
+    }
+
+    @Override
+    public Long migrateBatch(Long afterId, int batchSize) {
+        List<Long> ids = productRepository.findIdsAfter(afterId != null ? afterId : 0L, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return null;
+        }
+        rebuildBatch(ids);
+        return ids.get(ids.size() - 1);
+    }
+
+    private void rebuildBatch(List<Long> ids) {
+        // Lock the rows before counting, so reviews and orders committing meanwhile are
+        // either counted here or applied on top of the rebuilt values, never both
+        List<Product> products = productRepository.findAllByIdForUpdate(ids);
+
+        Map<Long, long[]> starCounts = new HashMap<>();
+        for (ReviewRepository.RatingCount row : reviewRepository.countRatingsByProductIds(ids)) {
+            int rating = row.getRating();
+            if (rating >= 1 && rating <= 5) {
+                starCounts.computeIfAbsent(row.getProductId(), id -> new long[6])[rating] = row.getReviewCount();
+            }
+        }
+        Map<Long, Long> unitsSold = new HashMap<>();
+        for (OrderRepository.ProductQuantity row : orderRepository.sumQuantityByProductIds(ids)) {
+            unitsSold.put(row.getProductId(), row.getQuantity());
+        }
+
+        for (Product product : products) {
+            long[] stars = starCounts.getOrDefault(product.getId(), new long[6]);
+            int reviewCount = 0;
+            int ratingSum = 0;
+            for (int rating = 1; rating <= 5; rating++) {
+                reviewCount += (int) stars[rating];
+                ratingSum += (int) stars[rating] * rating;
+            }
+            product.setReviewCount(reviewCount);
+            product.setRatingSum(ratingSum);
+            product.setAverageRating(reviewCount > 0 ? (double) ratingSum / reviewCount : 0.0);
+            product.setOneStarCount((int) stars[1]);
+            product.setTwoStarCount((int) stars[2]);
+            product.setThreeStarCount((int) stars[3]);
+            product.setFourStarCount((int) stars[4]);
+            product.setFiveStarCount((int) stars[5]);
+            product.setSalesCount(unitsSold.getOrDefault(product.getId(), 0L).intValue());
+        }
+        productRepository.saveAll(products);
+    }
+}
@@ -3,9 +3,11 @@ package savora.com.savora.service;
 import savora.com.savora.model.Review;
 import savora.com.savora.model.Product;
 import savora.com.savora.model.User;
+import savora.com.savora.repository.ProductRepository;
 import savora.com.savora.repository.ReviewRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,8 +17,22 @@ public class ReviewService {
     @Autowired
     private ReviewRepository reviewRepository;
 
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private AnalyticsCacheService analyticsCacheService;
+
+    @Transactional
     public Review saveReview(Review review) {
-        return reviewRepository.save(review);
+        boolean isNew = review.getId() == null;
+        Review savedReview = reviewRepository.save(review);
+        // Reviews are not edited after creation, so only inserts and deletes move the summary
+        if (isNew) {
+            applyToProductSummary(savedReview, 1);
+        }
+        evictAnalytics(savedReview);
+        return savedReview;
     }
 
     public List<Review> getReviewsByProduct(Product product) {
@@ -39,6 +55,10 @@ public class ReviewService {
         return reviewRepository.countReviewsByProduct(product);
     }
 
+    public List<Review> getReviewsBySupplier(User supplier) {
+        return reviewRepository.findByProductSupplierOrderByCreatedAtDesc(supplier);
+    }
+
     public List<Review> getTopReviews(Product product, int limit) {
         List<Review> reviews = reviewRepository.findTop5ByProductOrderByCreatedAtDesc(product);
         return reviews.size() > limit ? reviews.subList(0, limit) : reviews;
@@ -54,10 +74,29 @@ public class ReviewService {
         return reviewRepository.findById(id);
     }
 
+    @Transactional
     public void deleteReview(Long id) {
+        reviewRepository.findById(id).ifPresent(review -> {
+            applyToProductSummary(review, -1);
+            evictAnalytics(review);
+        });
         reviewRepository.deleteById(id);
     }
 
+    private void applyToProductSummary(Review review, int delta) {
+        if (review.getRating() == null) {
+            return;
+        }
+        int rating = review.getRating();
+        productRepository.applyRating(review.getProduct().getId(), rating, delta, delta * rating);
+    }
+
+    // Ratings feed the supplier's analytics; the buyer dashboard lists recent reviews
+    private void evictAnalytics(Review review) {
+        analyticsCacheService.evictSupplier(review.getProduct().getSupplier().getId());
+        analyticsCacheService.evictBuyer(review.getBuyer().getId());
+    }
+
     public List<Review> getAllReviews() {
         return reviewRepository.findAll();
     }
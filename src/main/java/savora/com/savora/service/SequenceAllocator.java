@@ -0,0 +1,132 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.SequenceCounter;
+import savora.com.savora.repository.SequenceCounterRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out per-owner sequence numbers from the counter rows in sequence_counters.
+ *
+ * next() (supplier product IDs) advances an owner's counter a block at a time under a row
+ * lock in its own short transaction and serves values within a block from memory. Unused
+ * blocks are handed back on shutdown, so gaps only appear after a crash or when several
+ * instances allocate for the same owner.
+ *
+ * nextInTransaction() (buyer and supplier order numbers) advances the counter in the
+ * caller's transaction instead: the row stays locked until that transaction ends and a
+ * rollback hands the values back. Checkout uses it so that taking a number needs no second
+ * pooled connection while the checkout holds one.
+ */
+@Service
+public class SequenceAllocator {
+
+    public static final String SUPPLIER_PRODUCT = "supplier-product";
+    public static final String BUYER_ORDER = "buyer-order";
+    public static final String SUPPLIER_ORDER = "supplier-order";
+
+    @Autowired
+    private SequenceCounterRepository sequenceCounterRepository;
+
+    @Value("${sequences.block-size:10}")
+    private int blockSize;
+
+    private final TransactionTemplate requiresNew;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    public SequenceAllocator(PlatformTransactionManager transactionManager) {
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Next value for the owner; seed supplies the first value when the counter does not exist yet
+    public int next(String sequenceName, Long ownerId, LongSupplier seed) {
+        Block block = blocks.computeIfAbsent(sequenceName + ":" + ownerId,
+                key -> new Block(sequenceName, ownerId));
+        synchronized (block) {
+            if (block.next >= block.limit) {
+                block.next = reserve(sequenceName, ownerId, seed);
+                block.limit = block.next + blockSize;
+            }
+            return (int) block.next++;
+        }
+    }
+
+    // count consecutive values, the first one returned; the caller's transaction must be the one writing them
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int nextInTransaction(String sequenceName, Long ownerId, int count, LongSupplier seed) {
+        SequenceCounter counter = sequenceCounterRepository.findForUpdate(sequenceName, ownerId).orElse(null);
+        if (counter == null) {
+            sequenceCounterRepository.createIfAbsent(sequenceName, ownerId, seed.getAsLong());
+            counter = sequenceCounterRepository.findForUpdate(sequenceName, ownerId).orElseThrow();
+        }
+        long start = counter.getNextValue();
+        counter.setNextValue(start + count);
+        return (int) start;
+    }
+
+    private long reserve(String sequenceName, Long ownerId, LongSupplier seed) {
+        try {
+            return requiresNew.execute(status -> reserveLocked(sequenceName, ownerId, seed));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the counter row first; it exists now
+            return requiresNew.execute(status -> reserveLocked(sequenceName, ownerId, seed));
+        }
+    }
+
+    private long reserveLocked(String sequenceName, Long ownerId, LongSupplier seed) {
+        SequenceCounter counter = sequenceCounterRepository.findForUpdate(sequenceName, ownerId).orElse(null);
+        if (counter == null) {
+            counter = new SequenceCounter();
+            counter.setSequenceName(sequenceName);
+            counter.setOwnerId(ownerId);
+            counter.setNextValue(seed.getAsLong());
+        }
+        long start = counter.getNextValue();
+        counter.setNextValue(start + blockSize);
+        sequenceCounterRepository.saveAndFlush(counter);
+        return start;
+    }
+
+    @PreDestroy
+    public void releaseUnused() {
+        for (Block block : blocks.values()) {
+            synchronized (block) {
+                if (block.next < block.limit) {
+                    try {
+                        requiresNew.executeWithoutResult(status -> sequenceCounterRepository.releaseBlock(
+                                block.sequenceName, block.ownerId, block.next, block.limit));
+                    } catch (Exception e) {
+                        System.err.println("Error releasing sequence block " + block.sequenceName + ":" + block.ownerId + ": " + e.getMessage());
+                    }
+                    block.limit = block.next;
+                }
+            }
+        }
+    }
+
+    // Reserved range [next, limit) of one owner's sequence
+    private static final class Block {
+        final String sequenceName;
+        final Long ownerId;
+        long next;
+        long limit;
+
+        Block(String sequenceName, Long ownerId) {
+            this.sequenceName = sequenceName;
+            this.ownerId = ownerId;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.Order;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Flat shipping cost per shipping method, charged once per order (i.e. per supplier shipment)
+@Component
+public class ShippingRateTable {
+
+    private final Map<Order.ShippingMethod, BigDecimal> rates = new EnumMap<>(Order.ShippingMethod.class);
+
+    public ShippingRateTable(@Value("${shipping.rates.regular:5000}") BigDecimal regular,
+                             @Value("${shipping.rates.express:10000}") BigDecimal express,
+                             @Value("${shipping.rates.same-day:15000}") BigDecimal sameDay,
+                             @Value("${shipping.rates.instant:25000}") BigDecimal instant) {
+        rates.put(Order.ShippingMethod.REGULAR, regular);
+        rates.put(Order.ShippingMethod.EXPRESS, express);
+        rates.put(Order.ShippingMethod.SAME_DAY, sameDay);
+        rates.put(Order.ShippingMethod.INSTANT, instant);
+    }
+
+    public BigDecimal costOf(Order.ShippingMethod method) {
+        return rates.get(method != null ? method : Order.ShippingMethod.REGULAR);
+    }
+
+    // Rates keyed by method name, for the checkout page
+    public Map<String, BigDecimal> asMap() {
+        Map<String, BigDecimal> byName = new LinkedHashMap<>();
+        rates.forEach((method, cost) -> byName.put(method.name(), cost));
+        return Collections.unmodifiableMap(byName);
+    }
+}
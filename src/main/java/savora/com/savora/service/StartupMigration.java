@@ -0,0 +1,21 @@
+package savora.com.savora.service;
+
+/**
+ * A one-time data migration run in batches by DataMigrationService. Each batch runs in its
+ * own transaction together with the progress update, so a restart resumes after the last
+ * committed batch. The name is the permanent key in data_migrations; rename it to rerun.
+ */
+public interface StartupMigration {
+
+    String getName();
+
+    // Processes up to batchSize rows with ID greater than afterId (null for the first batch).
+    // Returns the last ID processed, or null when nothing is left.
+    Long migrateBatch(Long afterId, int batchSize);
+
+    // Schema changes the batches depend on. Runs before the first batch outside any transaction,
+    // since MySQL commits DDL implicitly, and again on every start until the migration completes,
+    // so it must check the current schema before changing it.
+    default void migrateSchema() {
+    }
+}
@@ -0,0 +1,31 @@
+package savora.com.savora.service;
+
+import savora.com.savora.repository.StockReservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+// Drops NOT NULL from stock_reservations.order_id, which ddl-auto=update does not relax on
+// existing tables: checkout now reserves stock before its orders are inserted
+@Service
+@Order(0)
+public class StockReservationSchemaMigration implements StartupMigration {
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Override
+    public String getName() {
+        return "stock-reservation-order-nullable";
+    }
+
+    @Override
+    public void migrateSchema() {
+        stockReservationRepository.allowUnboundReservations();
+    }
+
+    @Override
+    public Long migrateBatch(Long afterId, int batchSize) {
+        return null;
+    }
+}
@@ -0,0 +1,43 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.Product;
+import savora.com.savora.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+// Assigns supplierProductId to products created before it existed, continuing after each supplier's highest ID
+@Service
+@Order(1)
+public class SupplierProductIdMigration implements StartupMigration {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Override
+    public String getName() {
+        return "supplier-product-id-backfill";
+    }
+
+    @Override
+    public Long migrateBatch(Long afterId, int batchSize) {
+        List<Product> products = productRepository.findBySupplierProductIdIsNullAndIdGreaterThanOrderByIdAsc(
+                afterId != null ? afterId : 0L, PageRequest.of(0, batchSize));
+        if (products.isEmpty()) {
+            return null;
+        }
+
+        // Shares the allocator with new products, so numbers handed out meanwhile never collide
+        for (Product product : products) {
+            product.setSupplierProductId(productService.getNextSupplierProductId(product.getSupplier()));
+        }
+        productRepository.saveAll(products);
+        return products.get(products.size() - 1).getId();
+    }
+}
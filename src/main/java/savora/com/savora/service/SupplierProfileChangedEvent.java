@@ -0,0 +1,14 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.User;
+
+// Published by UserService when a supplier's profile is saved; listeners run after commit
+public class SupplierProfileChangedEvent {
+    private final User supplier;
+
+    public SupplierProfileChangedEvent(User supplier) {
+        this.supplier = supplier;
+    }
+
+    public User getSupplier() { return supplier; }
+}
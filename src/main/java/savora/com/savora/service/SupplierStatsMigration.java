@@ -0,0 +1,46 @@
+package savora.com.savora.service;
+
+import savora.com.savora.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Builds the supplier daily stats rollups from the orders table for every supplier with
+ * orders, so the rollups cover history written before they were maintained at write time.
+ */
+@Service
+@Order(4)
+public class SupplierStatsMigration implements StartupMigration {
+
+    // A supplier's rebuild reads its whole order history, so keep batches small
+    private static final int MAX_SUPPLIERS_PER_BATCH = 20;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private SupplierStatsService supplierStatsService;
+
+    @Override
+    public String getName() {
+        return "supplier-stats-backfill";
+    }
+
+    @Override
+    public Long migrateBatch(Long afterId, int batchSize) {
+        List<Long> supplierIds = orderRepository.findSupplierIdsAfter(afterId != null ? afterId : 0L,
+                PageRequest.of(0, Math.min(batchSize, MAX_SUPPLIERS_PER_BATCH)));
+        if (supplierIds.isEmpty()) {
+            return null;
+        }
+        // Each supplier is rebuilt in its own transaction, safe against live order writes
+        for (Long supplierId : supplierIds) {
+            supplierStatsService.rebuildSupplier(supplierId);
+        }
+        return supplierIds.get(supplierIds.size() - 1);
+    }
+}
@@ -0,0 +1,231 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.Order;
+import savora.com.savora.model.OrderItem;
+import savora.com.savora.model.SupplierDailyStats;
+import savora.com.savora.model.SupplierProductDailyStats;
+import savora.com.savora.model.User;
+import savora.com.savora.repository.OrderRepository;
+import savora.com.savora.repository.SupplierDailyStatsRepository;
+import savora.com.savora.repository.SupplierProductDailyStatsRepository;
+import savora.com.savora.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Maintains the supplier_daily_stats and supplier_product_daily_stats rollups.
+ * Every order write applies its delta with an atomic upsert; history that predates
+ * the rollup is backfilled once by SupplierStatsMigration, never in a request.
+ * Status changes arrive as order events, in the transaction that made them, and are folded per supplier and day, so
+ * a batch of events costs one upsert per supplier-day rather than one per order.
+ */
+@Service
+public class SupplierStatsService implements OrderEventSubscriber {
+
+    @Autowired
+    private SupplierDailyStatsRepository dailyStatsRepository;
+
+    @Autowired
+    private SupplierProductDailyStatsRepository productDailyStatsRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private AnalyticsCacheService analyticsCacheService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Transactional
+    public void recordOrderCreated(Order order) {
+        boolean newCustomer = orderRepository.countByBuyerAndSupplier(order.getBuyer(), order.getSupplier()) == 1;
+        applyOrder(order, 1, newCustomer ? 1 : 0);
+    }
+
+    // A buyer counts as a new customer on the day of their first order with the supplier; when that
+    // order is deleted, the count moves to the day of their earliest remaining order, if any
+    @Transactional
+    public void recordOrderDeleted(Order order) {
+        Order firstRemaining = orderRepository
+                .findFirstByBuyerAndSupplierOrderByCreatedAtAscIdAsc(order.getBuyer(), order.getSupplier())
+                .orElse(null);
+        boolean wasFirst = firstRemaining == null || isBefore(order, firstRemaining);
+        applyOrder(order, -1, wasFirst ? -1 : 0);
+        if (wasFirst && firstRemaining != null) {
+            upsertDaily(order.getSupplier().getId(), firstRemaining.getCreatedAt().toLocalDate(), BigDecimal.ZERO, 0, 1,
+                    new int[Order.Status.values().length]);
+        }
+    }
+
+    private static boolean isBefore(Order order, Order other) {
+        int byDate = order.getCreatedAt().compareTo(other.getCreatedAt());
+        return byDate < 0 || (byDate == 0 && order.getId() < other.getId());
+    }
+
+    // Applies status and total changes of an existing order; previous values may be null when unknown
+    @Transactional
+    public void recordOrderUpdated(Order order, Order.Status previousStatus, BigDecimal previousTotal) {
+        boolean statusChanged = previousStatus != null && previousStatus != order.getStatus();
+        BigDecimal revenueDelta = previousTotal != null && order.getTotalAmount() != null
+                ? order.getTotalAmount().subtract(previousTotal)
+                : BigDecimal.ZERO;
+        if (!statusChanged && revenueDelta.signum() == 0) {
+            return;
+        }
+
+        int[] statusDeltas = new int[Order.Status.values().length];
+        if (statusChanged) {
+            statusDeltas[previousStatus.ordinal()]--;
+            statusDeltas[order.getStatus().ordinal()]++;
+        }
+        upsertDaily(order.getSupplier().getId(), order.getCreatedAt().toLocalDate(), revenueDelta, 0, 0, statusDeltas);
+    }
+
+    @Override
+    @Transactional
+    public void onOrderEvents(List<OrderStatusChangedEvent> events) {
+        Set<Long> supplierIds = new LinkedHashSet<>();
+        Set<Long> buyerIds = new LinkedHashSet<>();
+        Map<Long, Map<LocalDate, int[]>> deltas = new LinkedHashMap<>();
+        for (OrderStatusChangedEvent event : events) {
+            supplierIds.add(event.getSupplier().getId());
+            buyerIds.add(event.getBuyer().getId());
+            if (!event.isStatusChanged()) {
+                continue;
+            }
+            int[] statusDeltas = deltas
+                    .computeIfAbsent(event.getSupplier().getId(), id -> new HashMap<>())
+                    .computeIfAbsent(event.getOrderCreatedAt().toLocalDate(), date -> new int[Order.Status.values().length]);
+            statusDeltas[event.getFromStatus().ordinal()]--;
+            statusDeltas[event.getToStatus().ordinal()]++;
+        }
+
+        for (Map.Entry<Long, Map<LocalDate, int[]>> bySupplier : deltas.entrySet()) {
+            bySupplier.getValue().forEach((date, statusDeltas) ->
+                    upsertDaily(bySupplier.getKey(), date, BigDecimal.ZERO, 0, 0, statusDeltas));
+        }
+        supplierIds.forEach(analyticsCacheService::evictSupplier);
+        buyerIds.forEach(analyticsCacheService::evictBuyer);
+    }
+
+    // Recomputes all rollup rows of a supplier from its orders while live writes keep coming, in a
+    // transaction of its own so the orders are read only once its locks are held. The supplier's
+    // user row is locked first: a checkout holds a shared lock on it from its order insert (the
+    // orders foreign key) until it commits, so the rebuild waits for checkouts in flight and new
+    // ones wait for the rebuild. Deleting the rollup rows next holds off the status changes and
+    // deletes that upsert them. Every live delta then lands either before the read or on top of
+    // the result, never lost or counted twice.
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void rebuildSupplier(Long supplierId) {
+        User supplier = userRepository.findByIdForUpdate(supplierId).orElse(null);
+        if (supplier == null) {
+            return;
+        }
+        dailyStatsRepository.deleteBySupplierId(supplierId);
+        productDailyStatsRepository.deleteBySupplierId(supplierId);
+
+        List<Order> orders = new ArrayList<>(orderRepository.findBySupplier(supplier));
+        orders.sort(Comparator.comparing(Order::getCreatedAt).thenComparing(Order::getId));
+
+        Map<LocalDate, SupplierDailyStats> daily = new HashMap<>();
+        Map<String, SupplierProductDailyStats> productDaily = new HashMap<>();
+        Set<Long> seenBuyers = new HashSet<>();
+
+        for (Order order : orders) {
+            LocalDate date = order.getCreatedAt().toLocalDate();
+            SupplierDailyStats day = daily.computeIfAbsent(date, d -> {
+                SupplierDailyStats stats = new SupplierDailyStats();
+                stats.setSupplierId(supplierId);
+                stats.setStatDate(d);
+                return stats;
+            });
+            day.setOrderCount(day.getOrderCount() + 1);
+            day.setRevenue(day.getRevenue().add(order.getTotalAmount()));
+            if (seenBuyers.add(order.getBuyer().getId())) {
+                day.setNewCustomerCount(day.getNewCustomerCount() + 1);
+            }
+            incrementStatus(day, order.getStatus());
+
+            for (Map.Entry<Long, ProductLine> entry : linesByProduct(order).entrySet()) {
+                SupplierProductDailyStats productDay = productDaily.computeIfAbsent(entry.getKey() + "|" + date, k -> {
+                    SupplierProductDailyStats stats = new SupplierProductDailyStats();
+                    stats.setSupplierId(supplierId);
+                    stats.setProductId(entry.getKey());
+                    stats.setStatDate(date);
+                    return stats;
+                });
+                productDay.setUnitsSold(productDay.getUnitsSold() + entry.getValue().units);
+                productDay.setRevenue(productDay.getRevenue().add(entry.getValue().revenue));
+                productDay.setOrderCount(productDay.getOrderCount() + 1);
+            }
+        }
+
+        dailyStatsRepository.saveAll(daily.values());
+        productDailyStatsRepository.saveAll(productDaily.values());
+    }
+
+    private void applyOrder(Order order, int sign, int customerDelta) {
+        Long supplierId = order.getSupplier().getId();
+        LocalDate date = order.getCreatedAt().toLocalDate();
+
+        int[] statusDeltas = new int[Order.Status.values().length];
+        statusDeltas[order.getStatus().ordinal()] = sign;
+        BigDecimal revenue = order.getTotalAmount().multiply(BigDecimal.valueOf(sign));
+        upsertDaily(supplierId, date, revenue, sign, customerDelta, statusDeltas);
+
+        for (Map.Entry<Long, ProductLine> entry : linesByProduct(order).entrySet()) {
+            productDailyStatsRepository.upsertIncrement(supplierId, entry.getKey(), date,
+                    entry.getValue().units * sign,
+                    entry.getValue().revenue.multiply(BigDecimal.valueOf(sign)),
+                    sign);
+        }
+    }
+
+    private void upsertDaily(Long supplierId, LocalDate date, BigDecimal revenue, int orderCount,
+                             int newCustomerCount, int[] statusDeltas) {
+        dailyStatsRepository.upsertIncrement(supplierId, date, revenue, orderCount, newCustomerCount,
+                statusDeltas[Order.Status.PENDING.ordinal()],
+                statusDeltas[Order.Status.CONFIRMED.ordinal()],
+                statusDeltas[Order.Status.PROCESSING.ordinal()],
+                statusDeltas[Order.Status.SHIPPED.ordinal()],
+                statusDeltas[Order.Status.DELIVERED.ordinal()],
+                statusDeltas[Order.Status.CANCELLED.ordinal()]);
+    }
+
+    private void incrementStatus(SupplierDailyStats day, Order.Status status) {
+        switch (status) {
+            case PENDING -> day.setPendingCount(day.getPendingCount() + 1);
+            case CONFIRMED -> day.setConfirmedCount(day.getConfirmedCount() + 1);
+            case PROCESSING -> day.setProcessingCount(day.getProcessingCount() + 1);
+            case SHIPPED -> day.setShippedCount(day.getShippedCount() + 1);
+            case DELIVERED -> day.setDeliveredCount(day.getDeliveredCount() + 1);
+            case CANCELLED -> day.setCancelledCount(day.getCancelledCount() + 1);
+        }
+    }
+
+    // Units and line revenue of an order grouped by product
+    private Map<Long, ProductLine> linesByProduct(Order order) {
+        Map<Long, ProductLine> lines = new HashMap<>();
+        if (order.getOrderItems() == null) {
+            return lines;
+        }
+        for (OrderItem item : order.getOrderItems()) {
+            ProductLine line = lines.computeIfAbsent(item.getProduct().getId(), id -> new ProductLine());
+            line.units += item.getQuantity();
+            line.revenue = line.revenue.add(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+        }
+        return lines;
+    }
+
+    private static class ProductLine {
+        int units;
+        BigDecimal revenue = BigDecimal.ZERO;
+    }
+}
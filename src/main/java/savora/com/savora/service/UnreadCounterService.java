@@ -0,0 +1,134 @@
+package savora.com.savora.service;
+
+import savora.com.savora.model.Notification;
+import savora.com.savora.repository.NotificationRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unread notification counts per username, kept in memory so badge reads do not query
+ * notifications. A user's counter is loaded from the table on first read, then moved by the
+ * changes this instance commits: +n when notifications are stored, -n when they are read or
+ * deleted. Counters of users idle for idle-minutes are dropped and reloaded on next read.
+ *
+ * A scheduled pass recounts the cached users in batches and corrects any drift, e.g. from
+ * another instance or a change racing the initial load. A counter that moved while its
+ * recount ran is left for the next pass rather than overwritten with a stale value.
+ */
+@Service
+public class UnreadCounterService {
+
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Value("${notifications.unread.max-users:100000}")
+    private long maxUsers;
+
+    @Value("${notifications.unread.idle-minutes:60}")
+    private long idleMinutes;
+
+    private Cache<String, AtomicLong> counters;
+
+    @PostConstruct
+    public void start() {
+        counters = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .build();
+    }
+
+    public long get(String username) {
+        if (username == null) {
+            return 0L;
+        }
+        return counters.get(username, key -> new AtomicLong(notificationRepository.countByUserUsernameAndIsRead(key, false))).get();
+    }
+
+    // Notifications just committed; a user without a loaded counter picks them up on first read
+    public void notificationsCreated(List<Notification> notifications) {
+        Map<String, Long> created = new HashMap<>();
+        for (Notification notification : notifications) {
+            if (!Boolean.TRUE.equals(notification.getIsRead())) {
+                created.merge(notification.getUser().getUsername(), 1L, Long::sum);
+            }
+        }
+        created.forEach(this::apply);
+    }
+
+    // Read or deleted notifications (negative delta), applied once the caller's transaction commits
+    public void adjust(String username, long delta) {
+        if (username == null || delta == 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(username, delta);
+                }
+            });
+        } else {
+            apply(username, delta);
+        }
+    }
+
+    private void apply(String username, long delta) {
+        AtomicLong counter = counters.getIfPresent(username);
+        if (counter != null) {
+            counter.updateAndGet(count -> Math.max(0, count + delta));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.unread.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        List<String> usernames = new ArrayList<>(counters.asMap().keySet());
+        for (int from = 0; from < usernames.size(); from += RECONCILE_BATCH_SIZE) {
+            List<String> batch = usernames.subList(from, Math.min(from + RECONCILE_BATCH_SIZE, usernames.size()));
+            try {
+                reconcileBatch(batch);
+            } catch (Exception e) {
+                System.err.println("Error reconciling unread counters: " + e.getMessage());
+            }
+        }
+    }
+
+    // Reads quietly so reconciling does not keep idle users' counters alive
+    private void reconcileBatch(List<String> usernames) {
+        Map<String, Long> before = new HashMap<>();
+        for (String username : usernames) {
+            AtomicLong counter = counters.policy().getIfPresentQuietly(username);
+            if (counter != null) {
+                before.put(username, counter.get());
+            }
+        }
+        if (before.isEmpty()) {
+            return;
+        }
+        Map<String, Long> actual = new HashMap<>();
+        for (NotificationRepository.UnreadCount row : notificationRepository.countUnreadByUsernames(before.keySet())) {
+            actual.put(row.getUsername(), row.getUnread());
+        }
+        before.forEach((username, expected) -> {
+            AtomicLong counter = counters.policy().getIfPresentQuietly(username);
+            if (counter != null) {
+                counter.compareAndSet(expected, actual.getOrDefault(username, 0L));
+            }
+        });
+    }
+}
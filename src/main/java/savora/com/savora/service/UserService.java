@@ -3,6 +3,7 @@ package savora.com.savora.service;
 import savora.com.savora.model.User;
 import savora.com.savora.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import java.util.Optional;
@@ -16,6 +17,9 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public User registerUser(User user) {
         if (userRepository.existsByUsername(user.getUsername())) {
             throw new RuntimeException("Username already exists");
@@ -36,6 +40,11 @@ public class UserService {
     }
 
     public User updateUser(User user) {
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        if (savedUser.getRole() == User.Role.SUPPLIER) {
+            // The company name is indexed with the supplier's products
+            eventPublisher.publishEvent(new SupplierProfileChangedEvent(savedUser));
+        }
+        return savedUser;
     }
 }
\ No newline at end of file
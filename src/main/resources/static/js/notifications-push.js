@@ -0,0 +1,105 @@
+// SAVORA - Notification push client
+// Connects to /ws (STOMP over WebSocket) and falls back to /notifications/stream (SSE).
+// Every message is re-dispatched on document as a 'savora:notifications' event whose
+// detail is { unreadDelta, notifications: [{ title, message, type, orderId, actionUrl, createdAt }] }.
+
+(function () {
+    const DESTINATION = '/user/queue/notifications';
+    const MAX_RETRY_DELAY = 30000;
+
+    let retryDelay = 1000;
+    let started = false;
+
+    function dispatch(payload) {
+        document.dispatchEvent(new CustomEvent('savora:notifications', { detail: payload }));
+    }
+
+    // Minimal STOMP 1.2 client: CONNECT, SUBSCRIBE and MESSAGE frames are all this channel needs
+    function connectStomp(onFailure) {
+        if (!('WebSocket' in window)) {
+            onFailure();
+            return;
+        }
+        const protocol = location.protocol === 'https:' ? 'wss://' : 'ws://';
+        const socket = new WebSocket(protocol + location.host + '/ws');
+        let connected = false;
+        let buffer = '';
+
+        socket.onopen = function () {
+            socket.send('CONNECT\naccept-version:1.2\nhost:' + location.hostname + '\nheart-beat:0,0\n\n\0');
+        };
+
+        socket.onmessage = function (event) {
+            buffer += event.data;
+            let end;
+            while ((end = buffer.indexOf('\0')) >= 0) {
+                const frame = buffer.substring(0, end).replace(/^\n+/, '');
+                buffer = buffer.substring(end + 1);
+                handleFrame(frame);
+            }
+        };
+
+        function handleFrame(frame) {
+            const split = frame.indexOf('\n\n');
+            const command = frame.substring(0, frame.indexOf('\n'));
+            const body = split >= 0 ? frame.substring(split + 2) : '';
+            if (command === 'CONNECTED') {
+                connected = true;
+                retryDelay = 1000;
+                socket.send('SUBSCRIBE\nid:notifications\ndestination:' + DESTINATION + '\n\n\0');
+            } else if (command === 'MESSAGE') {
+                try {
+                    dispatch(JSON.parse(body));
+                } catch (e) {
+                    console.error('Invalid notification message:', e);
+                }
+            } else if (command === 'ERROR') {
+                socket.close();
+            }
+        }
+
+        socket.onclose = function () {
+            if (connected) {
+                // Dropped after working: reconnect the same way
+                scheduleRetry(() => connectStomp(onFailure));
+            } else {
+                onFailure();
+            }
+        };
+    }
+
+    function connectSse() {
+        if (!('EventSource' in window)) {
+            return;
+        }
+        const source = new EventSource('/notifications/stream');
+        source.addEventListener('notification', function (event) {
+            retryDelay = 1000;
+            try {
+                dispatch(JSON.parse(event.data));
+            } catch (e) {
+                console.error('Invalid notification message:', e);
+            }
+        });
+        source.onerror = function () {
+            if (source.readyState === EventSource.CLOSED) {
+                scheduleRetry(connectSse);
+            }
+        };
+    }
+
+    function scheduleRetry(connect) {
+        setTimeout(connect, retryDelay);
+        retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY);
+    }
+
+    window.SavoraNotifications = {
+        start: function () {
+            if (started) {
+                return;
+            }
+            started = true;
+            connectStomp(connectSse);
+        }
+    };
+})();
@@ -0,0 +1,190 @@
+package savora.com.savora.service;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import savora.com.savora.model.EmailOutbox;
+import savora.com.savora.repository.EmailOutboxRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmailOutboxServiceTest {
+
+    private FakeMailSink sink;
+    private EmailOutboxService outbox;
+
+    @BeforeEach
+    void setUp() {
+        sink = new FakeMailSink();
+        outbox = new EmailOutboxService();
+        ReflectionTestUtils.setField(outbox, "mailSender", sink);
+        ReflectionTestUtils.setField(outbox, "maxAttempts", 3);
+        ReflectionTestUtils.setField(outbox, "backoffInitialSeconds", 30L);
+        ReflectionTestUtils.setField(outbox, "backoffMaxSeconds", 100L);
+    }
+
+    @Test
+    void sendsChunkInOneCallAndReportsOnlyRejectedRecipients() {
+        sink.rejected.add("bad@example.com");
+
+        Map<Long, String> failures = outbox.sendChunk(List.of(
+                email(1L, "a@example.com"), email(2L, "bad@example.com"), email(3L, "c@example.com")));
+
+        assertEquals(1, sink.sendCalls);
+        assertEquals(List.of("a@example.com", "c@example.com"), sink.delivered);
+        assertEquals(List.of(2L), new ArrayList<>(failures.keySet()));
+    }
+
+    @Test
+    void connectionFailureFailsWholeChunk() {
+        sink.down = true;
+
+        Map<Long, String> failures = outbox.sendChunk(List.of(email(1L, "a@example.com"), email(2L, "b@example.com")));
+
+        assertEquals(2, failures.size());
+        assertTrue(sink.delivered.isEmpty());
+    }
+
+    @Test
+    void crashedChunkStaysClaimedInsteadOfBeingMarkedSent() {
+        EmailOutboxRepository repository = mock(EmailOutboxRepository.class);
+        ReflectionTestUtils.setField(outbox, "emailOutboxRepository", repository);
+        ReflectionTestUtils.setField(outbox, "transactionTemplate", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(outbox, "workers", 2);
+        sink.crashOn = "c@example.com";
+        List<EmailOutbox> batch = List.of(email(1L, "a@example.com"), email(2L, "b@example.com"),
+                email(3L, "c@example.com"), email(4L, "d@example.com"));
+
+        outbox.start();
+        try {
+            EmailOutboxService.SendResults results = outbox.sendAll(batch);
+            assertEquals(Set.of(3L, 4L), results.unknown);
+            assertTrue(results.failures.isEmpty());
+
+            outbox.recordResults(batch, results);
+        } finally {
+            outbox.stop();
+        }
+
+        verify(repository).markSent(eq(List.of(1L, 2L)), eq(EmailOutbox.Status.SENT), any());
+        verify(repository, never()).recordFailure(any(), any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void lapsedClaimCountsAsAnAttempt() {
+        EmailOutboxRepository repository = mock(EmailOutboxRepository.class);
+        ReflectionTestUtils.setField(outbox, "emailOutboxRepository", repository);
+        ReflectionTestUtils.setField(outbox, "transactionTemplate", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(outbox, "batchSize", 10);
+        EmailOutbox pending = email(1L, "a@example.com");
+        EmailOutbox lapsed = email(2L, "b@example.com");
+        lapsed.setStatus(EmailOutbox.Status.SENDING);
+        lapsed.setAttempts(2);
+        when(repository.findDueForUpdate(any(), any(), any())).thenReturn(List.of(pending, lapsed));
+
+        List<EmailOutbox> claimed = outbox.claimBatch();
+
+        assertEquals(List.of(pending), claimed);
+        verify(repository).claim(eq(List.of(1L)), eq(EmailOutbox.Status.SENDING), any());
+        verify(repository).recordFailure(eq(2L), eq(EmailOutbox.Status.DEAD), eq(3), any(), any());
+    }
+
+    @Test
+    void retriesWithExponentialBackoffThenDeadLetters() {
+        EmailOutbox email = email(1L, "a@example.com");
+        LocalDateTime now = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+        outbox.recordFailure(email, "timeout", now);
+        assertEquals(EmailOutbox.Status.PENDING, email.getStatus());
+        assertEquals(now.plusSeconds(30), email.getNextAttemptAt());
+
+        outbox.recordFailure(email, "timeout", now);
+        assertEquals(now.plusSeconds(60), email.getNextAttemptAt());
+
+        outbox.recordFailure(email, "timeout", now);
+        assertEquals(EmailOutbox.Status.DEAD, email.getStatus());
+        assertEquals(3, email.getAttempts());
+        assertEquals("timeout", email.getLastError());
+    }
+
+    @Test
+    void backoffIsCapped() {
+        assertEquals(30, outbox.backoffSeconds(1));
+        assertEquals(60, outbox.backoffSeconds(2));
+        assertEquals(100, outbox.backoffSeconds(3));
+        assertEquals(100, outbox.backoffSeconds(40));
+    }
+
+    private static EmailOutbox email(Long id, String recipient) {
+        EmailOutbox email = new EmailOutbox();
+        email.setId(id);
+        email.setRecipient(recipient);
+        email.setSubject("Pesanan #" + id);
+        email.setBody("<p>Halo</p>");
+        return email;
+    }
+
+    // Local SMTP stand-in: records what one connection would deliver and rejects chosen recipients
+    private static class FakeMailSink extends JavaMailSenderImpl {
+        final List<String> rejected = new ArrayList<>();
+        final List<String> delivered = new ArrayList<>();
+        boolean down;
+        String crashOn;
+        int sendCalls;
+
+        @Override
+        public void send(MimeMessage... mimeMessages) {
+            sendCalls++;
+            if (down) {
+                throw new MailSendException("Mail server connection failed");
+            }
+            Map<Object, Exception> failed = new LinkedHashMap<>();
+            for (MimeMessage message : mimeMessages) {
+                String recipient = recipientOf(message);
+                if (recipient.equals(crashOn)) {
+                    // Not a MailException: a bug in the sending code rather than a refused message
+                    throw new IllegalStateException("Unexpected error sending to " + recipient);
+                }
+                if (rejected.contains(recipient)) {
+                    failed.put(message, new MessagingException("550 mailbox unavailable: " + recipient));
+                } else {
+                    delivered.add(recipient);
+                }
+            }
+            if (!failed.isEmpty()) {
+                throw new MailSendException(failed);
+            }
+        }
+
+        private static String recipientOf(MimeMessage message) {
+            try {
+                Address[] recipients = message.getAllRecipients();
+                return recipients[0].toString();
+            } catch (MessagingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package savora.com.savora.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import savora.com.savora.model.Order;
+import savora.com.savora.model.OrderItem;
+import savora.com.savora.model.Product;
+import savora.com.savora.model.StockReservation;
+import savora.com.savora.repository.OrderRepository;
+import savora.com.savora.repository.ProductRepository;
+import savora.com.savora.repository.StockReservationRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryReservationServiceTest {
+
+    private PlatformTransactionManager transactionManager;
+    private ProductRepository productRepository;
+    private StockReservationRepository stockReservationRepository;
+    private InventoryReservationService inventory;
+
+    @BeforeEach
+    void setUp() {
+        transactionManager = mock(PlatformTransactionManager.class);
+        productRepository = mock(ProductRepository.class);
+        stockReservationRepository = mock(StockReservationRepository.class);
+
+        inventory = new InventoryReservationService(transactionManager);
+        ReflectionTestUtils.setField(inventory, "productRepository", productRepository);
+        ReflectionTestUtils.setField(inventory, "stockReservationRepository", stockReservationRepository);
+        ReflectionTestUtils.setField(inventory, "eventPublisher", mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(inventory, "ttlMinutes", 30L);
+        ReflectionTestUtils.setField(inventory, "lockTimeoutMillis", 1000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void oversellIsRefusedAndRolledBack() {
+        when(productRepository.decrementStock(any())).thenReturn(List.of(7L));
+        when(productRepository.findStockQuantityById(7L)).thenReturn(1);
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> inventory.reserveAll(Map.of("ref-1", List.of(item(7L, 2)))));
+
+        assertTrue(e.getMessage().contains("Stok tersedia: 1"));
+        verify(stockReservationRepository, never()).insertAll(any());
+        // The decrements that did succeed are undone with the reservation transaction
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void stockIsReleasedWhenCheckoutRollsBack() {
+        when(productRepository.decrementStock(any())).thenReturn(List.of());
+        when(stockReservationRepository.findByReferenceInAndStatusAndOrderIdIsNull(List.of("ref-1"), StockReservation.Status.HELD))
+                .thenReturn(List.of(reservation(10L, null, 7L, 2)));
+        when(stockReservationRepository.transition(eq(10L), eq(StockReservation.Status.HELD),
+                eq(StockReservation.Status.RELEASED), any())).thenReturn(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        inventory.reserveAll(Map.of("ref-1", List.of(item(7L, 2))));
+        verify(stockReservationRepository).insertAll(any());
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        verify(productRepository).incrementStock(7L, 2);
+    }
+
+    @Test
+    void stockStaysTakenWhenCheckoutCommits() {
+        when(productRepository.decrementStock(any())).thenReturn(List.of());
+
+        TransactionSynchronizationManager.initSynchronization();
+        inventory.reserveAll(Map.of("ref-1", List.of(item(7L, 2))));
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        verify(productRepository, never()).incrementStock(anyLong(), anyInt());
+    }
+
+    @Test
+    void expiredReservationCancelsItsUnpaidOrder() {
+        Order order = pendingOrder(Order.PaymentMethod.BANK_TRANSFER);
+        OrderStateMachine orderStateMachine = mock(OrderStateMachine.class);
+        OrderService orderService = orderService(order, orderStateMachine);
+
+        orderService.expireUnpaidOrders();
+
+        verify(orderStateMachine).cancel(eq(order), eq(Order.PaymentStatus.FAILED), anyString());
+    }
+
+    @Test
+    void expiredReservationOfCashOnDeliveryOrderIsConfirmed() {
+        Order order = pendingOrder(Order.PaymentMethod.CASH_ON_DELIVERY);
+        OrderStateMachine orderStateMachine = mock(OrderStateMachine.class);
+        OrderService orderService = orderService(order, orderStateMachine);
+
+        orderService.expireUnpaidOrders();
+
+        verify(orderStateMachine, never()).cancel(any(), any(), any());
+        verify(stockReservationRepository).transitionByOrderId(eq(1L), eq(StockReservation.Status.HELD),
+                eq(StockReservation.Status.CONFIRMED), any());
+    }
+
+    private OrderService orderService(Order order, OrderStateMachine orderStateMachine) {
+        when(stockReservationRepository.findOrderIdsExpiredBefore(eq(StockReservation.Status.HELD), any(), any()))
+                .thenReturn(List.of(order.getId()));
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        when(orderRepository.findById(order.getId())).thenReturn(Optional.of(order));
+
+        OrderService orderService = new OrderService();
+        ReflectionTestUtils.setField(orderService, "orderRepository", orderRepository);
+        ReflectionTestUtils.setField(orderService, "inventoryReservationService", inventory);
+        ReflectionTestUtils.setField(orderService, "orderStateMachine", orderStateMachine);
+        ReflectionTestUtils.setField(orderService, "transactionTemplate", new TransactionTemplate(transactionManager));
+        return orderService;
+    }
+
+    private static Order pendingOrder(Order.PaymentMethod paymentMethod) {
+        Order order = new Order();
+        order.setId(1L);
+        order.setStatus(Order.Status.PENDING);
+        order.setPaymentStatus(Order.PaymentStatus.PENDING);
+        order.setPaymentMethod(paymentMethod);
+        return order;
+    }
+
+    private static OrderItem item(Long productId, int quantity) {
+        Product product = new Product();
+        product.setId(productId);
+        product.setName("Produk " + productId);
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private static StockReservation reservation(Long id, Long orderId, Long productId, int quantity) {
+        StockReservation reservation = new StockReservation();
+        reservation.setId(id);
+        reservation.setOrderId(orderId);
+        reservation.setReference("ref-1");
+        reservation.setProductId(productId);
+        reservation.setQuantity(quantity);
+        return reservation;
+    }
+}
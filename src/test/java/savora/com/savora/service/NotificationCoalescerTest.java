@@ -0,0 +1,128 @@
+package savora.com.savora.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotificationCoalescerTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long WINDOW = 10 * MINUTE;
+    private static final long FLUSH_INTERVAL = 30_000L;
+
+    @Test
+    void busySupplierGetsOneNotificationPerOrderWindowInsteadOfOnePerOrder() {
+        NotificationCoalescer<Long, String> coalescer = new NotificationCoalescer<>(WINDOW, 10);
+        Deliveries deliveries = new Deliveries();
+
+        // 500 orders for one supplier spread evenly over an hour, flushed like the scheduler does
+        long start = 1_000_000L;
+        long nextFlush = start + FLUSH_INTERVAL;
+        for (int i = 0; i < 500; i++) {
+            long now = start + i * (60 * MINUTE) / 500;
+            while (nextFlush <= now) {
+                deliveries.digests(coalescer.drainDue(nextFlush));
+                nextFlush += FLUSH_INTERVAL;
+            }
+            deliveries.offer(coalescer, 7L, "order-" + i, now);
+        }
+        deliveries.digests(coalescer.drainDue(start + 60 * MINUTE + WINDOW));
+
+        // Every row written is also one email, so both drop from 500 to one immediate and one digest per window
+        assertEquals(500, deliveries.ordersCovered);
+        assertEquals(12, deliveries.rows());
+        assertTrue(500 / deliveries.rows() >= 40, "reduction was only " + 500 / deliveries.rows() + "x");
+        assertEquals(0, coalescer.openWindows());
+    }
+
+    @Test
+    void quietSupplierIsNotifiedOfEveryOrderImmediately() {
+        NotificationCoalescer<Long, String> coalescer = new NotificationCoalescer<>(WINDOW, 10);
+        Deliveries deliveries = new Deliveries();
+
+        for (int i = 0; i < 6; i++) {
+            long now = i * 15 * MINUTE;
+            deliveries.digests(coalescer.drainDue(now));
+            deliveries.offer(coalescer, 7L, "order-" + i, now);
+        }
+        deliveries.digests(coalescer.drainAll());
+
+        assertEquals(6, deliveries.immediate);
+        assertEquals(0, deliveries.digests);
+    }
+
+    @Test
+    void digestCountsEveryHeldOrderButListsOnlyTheFirstFew() {
+        NotificationCoalescer<Long, String> coalescer = new NotificationCoalescer<>(WINDOW, 3);
+
+        assertTrue(coalescer.open(7L, 0));
+        for (int i = 1; i <= 5; i++) {
+            assertFalse(coalescer.open(7L, i * 1000L));
+            coalescer.hold(7L, "order-" + i, i * 1000L);
+        }
+
+        assertEquals(0, coalescer.drainDue(WINDOW - 1).size());
+        List<NotificationCoalescer.Digest<Long, String>> digests = coalescer.drainDue(WINDOW);
+        assertEquals(1, digests.size());
+        assertEquals(Long.valueOf(7), digests.get(0).getKey());
+        assertEquals(5, digests.get(0).getCount());
+        assertEquals(List.of("order-1", "order-2", "order-3"), digests.get(0).getItems());
+    }
+
+    @Test
+    void suppliersAreCoalescedSeparately() {
+        NotificationCoalescer<Long, String> coalescer = new NotificationCoalescer<>(WINDOW, 10);
+
+        assertTrue(coalescer.open(1L, 0));
+        assertTrue(coalescer.open(2L, 0));
+        coalescer.hold(1L, "a", 1000);
+        coalescer.hold(2L, "b", 1000);
+        coalescer.hold(2L, "c", 2000);
+
+        List<NotificationCoalescer.Digest<Long, String>> digests = coalescer.drainDue(WINDOW);
+        assertEquals(2, digests.size());
+        assertEquals(3, digests.stream().mapToInt(NotificationCoalescer.Digest::getCount).sum());
+    }
+
+    @Test
+    void orderHeldAfterItsWindowEndedStillReachesADigest() {
+        NotificationCoalescer<Long, String> coalescer = new NotificationCoalescer<>(WINDOW, 10);
+
+        assertTrue(coalescer.open(7L, 0));
+        coalescer.hold(7L, "late", WINDOW + 1);
+
+        assertEquals(0, coalescer.drainDue(WINDOW + 1).size());
+        assertEquals(List.of("late"), coalescer.drainAll().get(0).getItems());
+    }
+
+    // Tallies what NotificationService would write: one row (and email) per immediate order or digest
+    private static final class Deliveries {
+        int immediate;
+        int digests;
+        int ordersCovered;
+
+        void offer(NotificationCoalescer<Long, String> coalescer, Long supplier, String order, long now) {
+            if (coalescer.open(supplier, now)) {
+                immediate++;
+                ordersCovered++;
+            } else {
+                coalescer.hold(supplier, order, now);
+            }
+        }
+
+        void digests(List<NotificationCoalescer.Digest<Long, String>> drained) {
+            for (NotificationCoalescer.Digest<Long, String> digest : drained) {
+                digests++;
+                ordersCovered += digest.getCount();
+            }
+        }
+
+        int rows() {
+            return immediate + digests;
+        }
+    }
+}
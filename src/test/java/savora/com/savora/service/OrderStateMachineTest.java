@@ -0,0 +1,153 @@
+package savora.com.savora.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import savora.com.savora.model.Order;
+import savora.com.savora.model.StockReservation;
+import savora.com.savora.repository.OrderRepository;
+import savora.com.savora.repository.ProductRepository;
+import savora.com.savora.repository.StockReservationRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class OrderStateMachineTest {
+
+    private OrderRepository orderRepository;
+    private ProductRepository productRepository;
+    private StockReservationRepository stockReservationRepository;
+    private OrderEventDispatcher orderEventDispatcher;
+    private OrderStateMachine stateMachine;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository = mock(OrderRepository.class);
+        productRepository = mock(ProductRepository.class);
+        stockReservationRepository = mock(StockReservationRepository.class);
+        orderEventDispatcher = mock(OrderEventDispatcher.class);
+
+        InventoryReservationService inventory = new InventoryReservationService(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(inventory, "productRepository", productRepository);
+        ReflectionTestUtils.setField(inventory, "stockReservationRepository", stockReservationRepository);
+        ReflectionTestUtils.setField(inventory, "eventPublisher", mock(ApplicationEventPublisher.class));
+
+        stateMachine = new OrderStateMachine();
+        ReflectionTestUtils.setField(stateMachine, "orderRepository", orderRepository);
+        ReflectionTestUtils.setField(stateMachine, "orderEventDispatcher", orderEventDispatcher);
+        ReflectionTestUtils.setField(stateMachine, "inventoryReservationService", inventory);
+    }
+
+    @Test
+    void statusAllowsOnlyLifecycleMoves() {
+        assertTrue(Order.Status.PENDING.canTransitionTo(Order.Status.CONFIRMED));
+        assertTrue(Order.Status.PENDING.canTransitionTo(Order.Status.CANCELLED));
+        assertTrue(Order.Status.CONFIRMED.canTransitionTo(Order.Status.SHIPPED));
+        assertTrue(Order.Status.PROCESSING.canTransitionTo(Order.Status.CANCELLED));
+        assertTrue(Order.Status.SHIPPED.canTransitionTo(Order.Status.DELIVERED));
+
+        assertFalse(Order.Status.PENDING.canTransitionTo(Order.Status.DELIVERED));
+        assertFalse(Order.Status.SHIPPED.canTransitionTo(Order.Status.CANCELLED));
+        assertFalse(Order.Status.PROCESSING.canTransitionTo(Order.Status.CONFIRMED));
+        for (Order.Status next : Order.Status.values()) {
+            assertFalse(Order.Status.DELIVERED.canTransitionTo(next));
+            assertFalse(Order.Status.CANCELLED.canTransitionTo(next));
+        }
+    }
+
+    @Test
+    void refusedTransitionWritesNothing() {
+        Order order = order(1L, Order.Status.SHIPPED);
+
+        assertThrows(RuntimeException.class, () -> stateMachine.transition(order, Order.Status.CANCELLED));
+
+        verifyNoInteractions(orderRepository, stockReservationRepository, orderEventDispatcher);
+    }
+
+    @Test
+    void transitionUpdatesOnlyFromTheStateItRead() {
+        Order order = order(1L, Order.Status.PENDING);
+        when(orderRepository.applyTransition(eq(1L), eq(Order.Status.PENDING), eq(Order.PaymentStatus.PENDING),
+                eq(Order.Status.CONFIRMED), eq(Order.PaymentStatus.PENDING), any(), any(), any())).thenReturn(1);
+
+        stateMachine.transition(order, Order.Status.CONFIRMED);
+
+        verify(orderEventDispatcher).publish(any());
+        // The entity still describes the state before the change
+        assertEquals(Order.Status.PENDING, order.getStatus());
+    }
+
+    @Test
+    void concurrentChangeIsRefused() {
+        Order order = order(1L, Order.Status.PENDING);
+        when(orderRepository.applyTransition(any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(0);
+
+        assertThrows(RuntimeException.class, () -> stateMachine.transition(order, Order.Status.CONFIRMED));
+
+        verify(orderEventDispatcher, never()).publish(any());
+        verify(productRepository, never()).incrementStock(anyLong(), anyInt());
+    }
+
+    @Test
+    void cancellationReturnsHeldAndConfirmedStock() {
+        Order order = order(1L, Order.Status.CONFIRMED);
+        when(orderRepository.applyTransition(any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(1);
+        when(stockReservationRepository.findByOrderIdAndStatusIn(eq(1L), any())).thenReturn(List.of(
+                reservation(10L, 7L, 3, StockReservation.Status.CONFIRMED),
+                reservation(11L, 8L, 2, StockReservation.Status.HELD)));
+        when(stockReservationRepository.transition(eq(10L), eq(StockReservation.Status.CONFIRMED),
+                eq(StockReservation.Status.RELEASED), any())).thenReturn(1);
+        when(stockReservationRepository.transition(eq(11L), eq(StockReservation.Status.HELD),
+                eq(StockReservation.Status.RELEASED), any())).thenReturn(1);
+
+        stateMachine.cancel(order, Order.PaymentStatus.PENDING, "Dibatalkan oleh pembeli");
+
+        verify(productRepository).incrementStock(7L, 3);
+        verify(productRepository).incrementStock(8L, 2);
+        verify(orderEventDispatcher).publish(any());
+    }
+
+    @Test
+    void bulkTransitionSkipsOrdersThatCannotMove() {
+        List<Order> locked = List.of(order(1L, Order.Status.PENDING), order(2L, Order.Status.DELIVERED));
+
+        List<Long> moved = stateMachine.transitionAll(locked, Order.Status.CANCELLED);
+
+        assertEquals(List.of(1L), moved);
+        verify(orderRepository).updateStatusByIds(eq(List.of(1L)), eq(Order.Status.CANCELLED), any());
+    }
+
+    private static Order order(Long id, Order.Status status) {
+        Order order = new Order();
+        order.setId(id);
+        order.setStatus(status);
+        order.setPaymentStatus(Order.PaymentStatus.PENDING);
+        order.setPaymentMethod(Order.PaymentMethod.BANK_TRANSFER);
+        return order;
+    }
+
+    private static StockReservation reservation(Long id, Long productId, int quantity, StockReservation.Status status) {
+        StockReservation reservation = new StockReservation();
+        reservation.setId(id);
+        reservation.setOrderId(1L);
+        reservation.setProductId(productId);
+        reservation.setQuantity(quantity);
+        reservation.setStatus(status);
+        return reservation;
+    }
+}